@@ -0,0 +1,228 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Part of the FlatTrees which doesn't depend on where the nodes are stored:
+ * the creation of the nodes from an AbstractSyntaxTree and the identifiers.
+ * The storage only has to add a node and to link it.
+ */
+abstract class AbstractFlatTree implements FlatTree {
+    /**
+     * Identifiers of the variables, by id
+     */
+    private Identifier[] identifiers = new Identifier[16];
+
+    /**
+     * Add a node without child nor sibling
+     *
+     * @return the index of the node
+     */
+    abstract int add(NodeKind kind, int value, int line, int column);
+
+    abstract void setFirstChild(int node, int child);
+
+    abstract void setNextSibling(int node, int sibling);
+
+    abstract void setPosition(int node, int line, int column);
+
+    @Override
+    public Identifier identifier(int node) {
+        return identifiers[value(node)];
+    }
+
+    /**
+     * Add the nodes of the tree of a program, numbered in pre-order.
+     *
+     * @param AST the AbstractSyntaxTree whose label is Program
+     */
+    void fill(AbstractSyntaxTree AST) {
+        // Pre-order with an explicit stack: each AbstractSyntaxTree waits with the index
+        // of its parent, and lastChildren gives the child of the parent to link it after.
+        Deque<AbstractSyntaxTree> nodes = new ArrayDeque<>();
+        Deque<Integer> parents = new ArrayDeque<>();
+        int[] lastChildren = new int[64];
+        nodes.push(AST);
+        parents.push(NONE);
+
+        while (!nodes.isEmpty()) {
+            AbstractSyntaxTree node = nodes.pop();
+            int parent = parents.pop();
+
+            int index = add(node);
+            if (index == lastChildren.length) {
+                lastChildren = Arrays.copyOf(lastChildren, 2 * index);
+            }
+            lastChildren[index] = NONE;
+            if (parent != NONE) {
+                if (lastChildren[parent] == NONE) {
+                    setFirstChild(parent, index);
+                }
+                else {
+                    setNextSibling(lastChildren[parent], index);
+                }
+                lastChildren[parent] = index;
+            }
+
+            List<AbstractSyntaxTree> children = children(node);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                nodes.push(children.get(i));
+                parents.push(index);
+            }
+        }
+
+        // A node without position takes the one of its first child, which is after him
+        for (int i = size() - 1; i >= 0; i--) {
+            int child = firstChild(i);
+            if (line(i) == 0 && child != NONE) {
+                setPosition(i, line(child), column(child));
+            }
+        }
+    }
+
+    /**
+     * Add the node of an AbstractSyntaxTree
+     *
+     * @return the index of the node
+     */
+    private int add(AbstractSyntaxTree node) {
+        Symbol label = node.getLabel();
+        int value = 0;
+        if (label.getType() == LexicalUnit.NUMBER) {
+            value = (int) label.getValue();
+        }
+        else if (label.getType() == LexicalUnit.VARNAME) {
+            Identifier identifier = (Identifier) label.getValue();
+            if (identifier.getId() >= identifiers.length) {
+                identifiers = Arrays.copyOf(identifiers, Math.max(identifiers.length * 2, identifier.getId() + 1));
+            }
+            identifiers[identifier.getId()] = identifier;
+            value = identifier.getId();
+        }
+        return add(kind(node), value, label.getLine(), label.getColumn());
+    }
+
+    /**
+     * Get the children of a node in the order of the FlatTree: the else is removed and the
+     * codes which are not in the AbstractSyntaxTree because they are empty are added.
+     */
+    private static List<AbstractSyntaxTree> children(AbstractSyntaxTree node) {
+        if (node.getLabel().isTerminal()) {
+            return node.getChildren();
+        }
+
+        List<AbstractSyntaxTree> children = new ArrayList<>(node.getChildren());
+        switch (node.getLabel().getValue().toString()) {
+            case "<Program>":
+                if (children.isEmpty()) {
+                    children.add(emptyCode());
+                }
+                break;
+            case "<While>":
+                if (children.size() < 2) {
+                    children.add(emptyCode());
+                }
+                break;
+            case "<For>":
+                if (children.size() < 5) {
+                    children.add(emptyCode());
+                }
+                break;
+            case "<If>":
+                List<AbstractSyntaxTree> codes = new ArrayList<>();
+                codes.add(children.get(0));
+                AbstractSyntaxTree thenCode = emptyCode();
+                AbstractSyntaxTree elseCode = emptyCode();
+                boolean withElse = false;
+                for (int i = 1; i < children.size(); i++) {
+                    if (children.get(i).getLabel().getType() == LexicalUnit.ELSE) {
+                        withElse = true;
+                    }
+                    else if (withElse) {
+                        elseCode = children.get(i);
+                    }
+                    else {
+                        thenCode = children.get(i);
+                    }
+                }
+                codes.add(thenCode);
+                if (withElse) {
+                    codes.add(elseCode);
+                }
+                return codes;
+        }
+        return children;
+    }
+
+    /**
+     * @return a code without instruction
+     */
+    private static AbstractSyntaxTree emptyCode() {
+        return new AbstractSyntaxTree(new Symbol(null, "<Code>"));
+    }
+
+    /**
+     * @return the kind of the node of an AbstractSyntaxTree
+     */
+    private static NodeKind kind(AbstractSyntaxTree node) {
+        Symbol label = node.getLabel();
+        if (label.isNonTerminal()) {
+            switch (label.getValue().toString()) {
+                case "<Program>":
+                    return NodeKind.PROGRAM;
+                case "<Code>":
+                    return NodeKind.CODE;
+                case "<Assign>":
+                    return NodeKind.ASSIGN;
+                case "<If>":
+                    return NodeKind.IF;
+                case "<While>":
+                    return NodeKind.WHILE;
+                case "<For>":
+                    return NodeKind.FOR;
+                case "<Print>":
+                    return NodeKind.PRINT;
+                case "<Read>":
+                    return NodeKind.READ;
+            }
+            throw new IllegalArgumentException("Not a node of the tree: " + label.getValue());
+        }
+
+        switch (label.getType()) {
+            case NUMBER:
+                return NodeKind.CONSTANT;
+            case VARNAME:
+                return NodeKind.VARIABLE;
+            case PLUS:
+                return NodeKind.ADD;
+            case MINUS:
+                return node.numberOfChildren() == 1 ? NodeKind.NEG : NodeKind.SUB;
+            case TIMES:
+                return NodeKind.MUL;
+            case DIVIDE:
+                return NodeKind.DIV;
+            case AND:
+                return NodeKind.AND;
+            case OR:
+                return NodeKind.OR;
+            case NOT:
+                return NodeKind.NOT;
+            case EQUAL:
+                return NodeKind.EQ;
+            case DIFFERENT:
+                return NodeKind.NE;
+            case GREATER:
+                return NodeKind.GT;
+            case GREATER_EQUAL:
+                return NodeKind.GE;
+            case SMALLER:
+                return NodeKind.LT;
+            case SMALLER_EQUAL:
+                return NodeKind.LE;
+            default:
+                throw new IllegalArgumentException("Not a node of the tree: " + label.getType());
+        }
+    }
+}
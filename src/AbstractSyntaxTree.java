@@ -1,5 +1,7 @@
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 
 /**
@@ -41,16 +43,14 @@ public class AbstractSyntaxTree {
      * Writes the tree as LaTeX code
      */
     public String toLaTexTree() {
-        StringBuilder treeTeX = new StringBuilder();
-        treeTeX.append("[");
-        treeTeX.append("{").append(getValue()).append("}");
-        treeTeX.append(" ");
+        return TreeExport.toString(this::writeLaTexTree);
+    }
 
-        for (AbstractSyntaxTree child : children) {
-            treeTeX.append(child.toLaTexTree());
-        }
-        treeTeX.append("]");
-        return treeTeX.toString();
+    /**
+     * Writes the tree as LaTeX code in out, without recursion
+     */
+    public void writeLaTexTree(Appendable out) throws IOException {
+        TreeExport.writeLaTexTree(this, AbstractSyntaxTree::getChildren, AbstractSyntaxTree::getValue, out);
     }
 
     /**
@@ -58,16 +58,14 @@ public class AbstractSyntaxTree {
      * files.
      */
     public String toTikZ() {
-        StringBuilder treeTikZ = new StringBuilder();
-        treeTikZ.append("node {");
-        treeTikZ.append(getValue());
-        treeTikZ.append("}\n");
-        for (AbstractSyntaxTree child : children) {
-            treeTikZ.append("child { ");
-            treeTikZ.append(child.toTikZ());
-            treeTikZ.append(" }\n");
-        }
-        return treeTikZ.toString();
+        return TreeExport.toString(this::writeTikZ);
+    }
+
+    /**
+     * Writes the tree as TikZ code in out, without recursion
+     */
+    public void writeTikZ(Appendable out) throws IOException {
+        TreeExport.writeTikZ(this, AbstractSyntaxTree::getChildren, AbstractSyntaxTree::getValue, out);
     }
 
     /**
@@ -75,7 +73,14 @@ public class AbstractSyntaxTree {
      * LaTeX undertands it.
      */
     public String toTikZPicture() {
-        return "\\begin{tikzpicture}[tree layout]\n\\" + toTikZ() + ";\n\\end{tikzpicture}";
+        return TreeExport.toString(this::writeTikZPicture);
+    }
+
+    /**
+     * Writes the tree as a TikZ picture in out
+     */
+    public void writeTikZPicture(Appendable out) throws IOException {
+        TreeExport.writeTikZPicture(this, AbstractSyntaxTree::getChildren, AbstractSyntaxTree::getValue, out);
     }
 
     /**
@@ -92,8 +97,14 @@ public class AbstractSyntaxTree {
      * </pre>
      */
     public String toLaTeXLua() {
-        return "\\RequirePackage{luatex85}\n\\documentclass{standalone}\n\n\\usepackage[T1]{fontenc}\n\\usepackage{tikz}\n\n\\usetikzlibrary{graphdrawing, graphdrawing.trees}\n\n\\begin{document}\n\n"
-                + toTikZPicture() + "\n\n\\end{document}\n%% Local Variables:\n%% TeX-engine: luatex\n%% End:";
+        return TreeExport.toString(this::writeLaTeXLua);
+    }
+
+    /**
+     * Writes the tree as a LaTeX document for LuaLaTeX in out
+     */
+    public void writeLaTeXLua(Appendable out) throws IOException {
+        TreeExport.writeLaTeXLua(this, AbstractSyntaxTree::getChildren, AbstractSyntaxTree::getValue, out);
     }
 
     /**
@@ -101,11 +112,17 @@ public class AbstractSyntaxTree {
      * using the latex code of the tree
      */
     public String toForestPicture() {
-        return "\\begin{forest}for tree={rectangle,draw, l sep=20pt}" + toLaTexTree() + ";\n\\end{forest}";
+        return TreeExport.toString(this::writeForestPicture);
     }
 
     /**
+     * Writes the tree as a forest picture in out
+     */
+    public void writeForestPicture(Appendable out) throws IOException {
+        TreeExport.writeForestPicture(this, AbstractSyntaxTree::getChildren, AbstractSyntaxTree::getValue, out);
+    }
 
+    /**
      * Writes the tree as a LaTeX document which can be compiled using PDFLaTeX.
      * <br>
      * <br>
@@ -116,201 +133,63 @@ public class AbstractSyntaxTree {
      * </pre>
      */
     public String toLaTeX() {
-        return "\\documentclass[border=5pt]{standalone}\n\n\\usepackage[T1]{fontenc}\n\\usepackage{tikz}\n\\usepackage{forest}\n\n\\begin{document}\n\n"
-                + toForestPicture() + "\n\n\\end{document}\n%% Local Variables:\n%% TeX-engine: pdflatex\n%% End:";
+        return TreeExport.toString(this::writeLaTeX);
     }
 
     /**
-     * Recursive function which simplify the tree by changing all the operations in binary (except for the 'not') trees.
-     * At the end it removes all the ExprArith and Cond nodes.
+     * Writes the tree as a LaTeX document for PDFLaTeX in out. The document is written
+     * piece by piece, so out can be a Writer on the file.
      */
-    public void simplify() {
-
-        // The case where an <ExprArith> as at least 3 children.
-        // That means that the children contains an operator.
-        // So we replace the <ExprArith> with result of the rearranged tree.
-        // Giving the node of the less priority operator.
-        if (getValue() == "<ExprArith>" && numberOfChildren() >= 3) {
-            children = Collections.singletonList(rearrangeTree());
-        }
-
-        // The case where an <Cond> as at least 3 children.
-        // That means that the children contains an operator.
-        // So we replace the <Cond> with result of the rearranged tree.
-        // Giving the node of the less priority operator.
-        if (getValue() == "<Cond>" && numberOfChildren() >= 3) {
-            children = Collections.singletonList(rearrangeTree());
-        }
-
-        // We call this function recursively on all the children of the this node.
-        for (AbstractSyntaxTree child : children) {
-            child.simplify();
-        }
-
-        // If we have still some <ExprArith> and <Cond>, we delete them knowing
-        // that they all have only one child.
-        int size = numberOfChildren();
-        for (int i = 0; i < size; i++) {
-            if (childAt(i).getValue() == "<ExprArith>" || childAt(i).getValue() == "<Cond>") {
-                children.set(i, childAt(i).childAt(0));
-            }
-        }
+    public void writeLaTeX(Appendable out) throws IOException {
+        TreeExport.writeLaTeX(this, AbstractSyntaxTree::getChildren, AbstractSyntaxTree::getValue, out);
     }
 
     /**
-     * Get the index of the less priority operator among all the children while rearranging the tree.
-     * @return index
+     * Simplify the tree by removing all the ExprArith and Cond nodes. The parsers already give
+     * each operation as a tree with the operator at the top, so an ExprArith or a Cond has the
+     * operation as only child, which takes its place.
+     * <br>
+     * The nodes are simplified from the leaves to the root with an explicit list instead of the
+     * recursion, so the time is linear in the number of nodes and a huge tree doesn't overflow
+     * the stack.
      */
-    private int getOperatorIndex() {
-        // OR - left associativity (reverse-loop)
-        for (int i = numberOfChildren() - 1; i >= 0; i--) {
-            AbstractSyntaxTree child = childAt(i);
-            if (child.getLabel().getType() == LexicalUnit.OR) {
-                return i;
-            }
-        }
-
-        // AND - left associativity (reverse-loop)
-        for (int i = numberOfChildren() - 1; i >= 0; i--) {
-            AbstractSyntaxTree child = childAt(i);
-            if (child.getLabel().getType() == LexicalUnit.AND) {
-                return i;
-            }
-        }
-
-        // NOT - right associativity (normal loop)
-        for (int i = 0; i < numberOfChildren(); i++) {
-            AbstractSyntaxTree child = childAt(i);
-            if (child.getLabel().getType() == LexicalUnit.NOT) {
-                return i;
-            }
-        }
-
-        // COMPARATOR - left associativity (reverse-loop)
-        for (int i = numberOfChildren() - 1; i >= 0; i--) {
-            AbstractSyntaxTree child = childAt(i);
-            if (child.getLabel().getType() != null) {
-                switch (child.getLabel().getType()) {
-                    case EQUAL:
-                    case DIFFERENT:
-                    case GREATER:
-                    case GREATER_EQUAL:
-                    case SMALLER:
-                    case SMALLER_EQUAL:
-                        return i;
-                }
+    public void simplify() {
+        // In the pre-order, a node comes before all the nodes below him, so in the reverse
+        // order they are all simplified before him.
+        List<AbstractSyntaxTree> nodes = new ArrayList<>();
+        Deque<AbstractSyntaxTree> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            AbstractSyntaxTree node = stack.pop();
+            nodes.add(node);
+            for (AbstractSyntaxTree child : node.children) {
+                stack.push(child);
             }
         }
 
-        // ADDITION SOUSTRACTION - left associativity (reverse-loop)
-        for (int i = numberOfChildren() - 1; i >= 0; i--) {
-            AbstractSyntaxTree child = childAt(i);
-            if (child.getLabel().getType() != null) {
-                switch (child.getLabel().getType()) {
-                    case PLUS:
-                    case MINUS:
-                        return i;
-                }
-            }
-        }
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            AbstractSyntaxTree node = nodes.get(i);
 
-        // MULTIPLICATION DIVISION - left associativity (reverse-loop)
-        for (int i = numberOfChildren() - 1; i >= 0; i--) {
-            AbstractSyntaxTree child = childAt(i);
-            if (child.getLabel().getType() != null) {
-                switch (child.getLabel().getType()) {
-                    case DIVIDE:
-                    case TIMES:
-                        return i;
-                }
+            // The <ExprArith> and <Cond> below have only one child, so we can delete them.
+            List<AbstractSyntaxTree> children = node.children;
+            for (int j = 0; j < children.size(); j++) {
+                children.set(j, children.get(j).withoutExpression());
             }
         }
-
-        return -1;
     }
 
     /**
-     * Rearrange the tree for each side of the less priority operator.
-     *
-     * All the children at the left side of the operator will be made children
-     * of a temporary node which will be the left child of the operator.
-     * Then the function repeats itself recursively on the temporary child.
-     *
-     * The same is done for all the children at the right side of the operator.
-     *
-     * This makes the operator to have only two children transforming the tree
-     * in a binary tree below him.
-     *
-     * @return the operator node
+     * Check if the node is an <ExprArith> or a <Cond>
      */
-    private AbstractSyntaxTree rearrangeTree() {
-        int operatorIndex = getOperatorIndex();
-        AbstractSyntaxTree operator = childAt(operatorIndex);
-        // operatorChildren will be with a maximum size of 2 at the end of this code.
-        List<AbstractSyntaxTree> operatorChildren = new ArrayList<>();
-
-        // If the operator has more than one node at his left we create a temporary node
-        // to store all the nodes as his children an removing them from this node's children.
-        if (operatorIndex > 1) {
-            AbstractSyntaxTree temp = new AbstractSyntaxTree(new Symbol(null, "temp"));
-            int startPos = 0;
-            for (int i = startPos; i < operatorIndex; i++) {
-                temp.getChildren().add(childAt(startPos));
-                children.remove(startPos);
-            }
-            operatorChildren.add(temp.rearrangeTree());
-        }
-        // If we have only one node at the left of the operator we look if this child
-        // is an <ExprArith> or a <Cond>. In this case it will have to rearrange the tree
-        // on the child to remove them. In the other case we can add the child meaning
-        // it's a [Number] or a [VarName].
-        else if (operatorIndex == 1) {
-            AbstractSyntaxTree child = childAt(0);
-            if (child.getValue() == "<ExprArith>" || child.getValue() == "<Cond>") {
-                if (child.numberOfChildren() >= 3) {
-                    operatorChildren.add(child.rearrangeTree());
-                }
-                else {
-                    operatorChildren.add(child.childAt(0));
-                }
-            }
-            else
-                operatorChildren.add(child);
-            children.remove(0);
-        }
-
-        // We do the same for the other side.
-        operatorIndex = getOperatorIndex();
-
-        if (operatorIndex < numberOfChildren() - 2) {
-
-            AbstractSyntaxTree temp = new AbstractSyntaxTree(new Symbol(null, "temp"));
-            int startPos = 1;
-            int childrenSize = numberOfChildren();
-            for (int i = startPos; i < childrenSize; i++) {
-                temp.getChildren().add(childAt(startPos));
-                children.remove(startPos);
-            }
-            operatorChildren.add(temp.rearrangeTree());
-        }
-        else {
-            AbstractSyntaxTree child = childAt(numberOfChildren() - 1);
-            if (child.getValue() == "<ExprArith>" || child.getValue() == "<Cond>") {
-                if (child.numberOfChildren() >= 3) {
-                    operatorChildren.add(child.rearrangeTree());
-                }
-                else {
-                    operatorChildren.add(child.childAt(0));
-                }
-            }
-            else
-                operatorChildren.add(child);
-            children.remove(numberOfChildren() - 1);
-        }
-
-        operator.children = operatorChildren;
+    private boolean isExpression() {
+        return label.isNonTerminal() && ("<ExprArith>".equals(getValue()) || "<Cond>".equals(getValue()));
+    }
 
-        return operator;
+    /**
+     * Get the only child of an <ExprArith> or a <Cond>, or the node itself otherwise
+     */
+    private AbstractSyntaxTree withoutExpression() {
+        return isExpression() ? childAt(0) : this;
     }
 
     /**
@@ -355,30 +234,37 @@ public class AbstractSyntaxTree {
 
     /**
      * Create an AbstractSyntaxTree from a ParseTree by keeping certain nodes and removing the others.
+     * The children of a removed node are added in its place. The ParseTree is visited in
+     * pre-order with an explicit stack, so it can be as deep as the memory allows.
      *
      * @param childrenPT children of a ParseTree
      * @param childrenAST children of an AbstractSyntaxTree created during the process
      */
     static private void createTree(List<ParseTree> childrenPT, List<AbstractSyntaxTree> childrenAST) {
-        for (ParseTree childPT : childrenPT) {
-            // We only keep the childPT that we want as a new child of the childrenAST
+        // Each node of the ParseTree waits with the list where its AbstractSyntaxTree goes
+        Deque<ParseTree> nodes = new ArrayDeque<>();
+        Deque<List<AbstractSyntaxTree>> destinations = new ArrayDeque<>();
+        for (int i = childrenPT.size() - 1; i >= 0; i--) {
+            nodes.push(childrenPT.get(i));
+            destinations.push(childrenAST);
+        }
+
+        while (!nodes.isEmpty()) {
+            ParseTree childPT = nodes.pop();
+            List<AbstractSyntaxTree> destination = destinations.pop();
+
+            // We only keep the childPT that we want as a new child of the destination,
+            // and its children go below it. Otherwise they go in the same destination.
             if (isToBeKept(childPT)) {
-                childrenAST.add(new AbstractSyntaxTree(childPT.getLabel()));
+                AbstractSyntaxTree childAST = new AbstractSyntaxTree(childPT.getLabel());
+                destination.add(childAST);
+                destination = childAST.children;
             }
 
-            // If the node has children
-            if (childPT.getLabel().isNonTerminal()) {
-                // For the childPT that we keep, we repeate the function recursively on the children of
-                // the childPT and on the last child added in the childrenAST.
-                // Since the childPT is to be kept, we are sure that it made a new child just before.
-                if (isToBeKept(childPT)) {
-                    createTree(childPT.getChildren(), childrenAST.get(childrenAST.size() - 1).children);
-                }
-                // Otherwise we repeate recursively on the children of the childPT but on the same childrenAST.
-                // This way ignoring the node but not his children.
-                else {
-                    createTree(childPT.getChildren(), childrenAST);
-                }
+            List<ParseTree> children = childPT.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                nodes.push(children.get(i));
+                destinations.push(destination);
             }
         }
     }
@@ -0,0 +1,137 @@
+import java.util.Arrays;
+
+/**
+ * FlatTree stored in int arrays, one array per field of the nodes.
+ * <br>
+ * A node costs a byte and 5 ints instead of an AbstractSyntaxTree, its list of children and
+ * its Symbol with a boxed value. The nodes are numbered in pre-order, so a code is generated by reading
+ * the arrays almost in order.
+ */
+public class ArenaTree extends AbstractFlatTree {
+    private static final NodeKind[] KINDS = NodeKind.values();
+
+    private byte[] kinds;
+    private int[] values;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] lines;
+    private int[] columns;
+    /**
+     * Number of nodes
+     */
+    private int size;
+
+    ArenaTree(int capacity) {
+        capacity = Math.max(capacity, 1);
+        kinds = new byte[capacity];
+        values = new int[capacity];
+        firstChildren = new int[capacity];
+        nextSiblings = new int[capacity];
+        lines = new int[capacity];
+        columns = new int[capacity];
+        size = 0;
+    }
+
+    /**
+     * Store the tree of a program.
+     *
+     * @param AST the AbstractSyntaxTree whose label is Program
+     * @return the tree stored in arrays
+     */
+    public static ArenaTree of(AbstractSyntaxTree AST) {
+        ArenaTree tree = new ArenaTree(64);
+        tree.fill(AST);
+        tree.trim();
+        return tree;
+    }
+
+    /**
+     * Reduce the arrays to the number of nodes
+     */
+    private void trim() {
+        kinds = Arrays.copyOf(kinds, size);
+        values = Arrays.copyOf(values, size);
+        firstChildren = Arrays.copyOf(firstChildren, size);
+        nextSiblings = Arrays.copyOf(nextSiblings, size);
+        lines = Arrays.copyOf(lines, size);
+        columns = Arrays.copyOf(columns, size);
+    }
+
+    @Override
+    int add(NodeKind kind, int value, int line, int column) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            values = Arrays.copyOf(values, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+        }
+
+        int index = size++;
+        kinds[index] = (byte) kind.ordinal();
+        values[index] = value;
+        firstChildren[index] = NONE;
+        nextSiblings[index] = NONE;
+        lines[index] = line;
+        columns[index] = column;
+        return index;
+    }
+
+    @Override
+    void setFirstChild(int node, int child) {
+        firstChildren[node] = child;
+    }
+
+    @Override
+    void setNextSibling(int node, int sibling) {
+        nextSiblings[node] = sibling;
+    }
+
+    @Override
+    void setPosition(int node, int line, int column) {
+        lines[node] = line;
+        columns[node] = column;
+    }
+
+    @Override
+    public int root() {
+        return 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public NodeKind kind(int node) {
+        return KINDS[kinds[node]];
+    }
+
+    @Override
+    public int value(int node) {
+        return values[node];
+    }
+
+    @Override
+    public int firstChild(int node) {
+        return firstChildren[node];
+    }
+
+    @Override
+    public int nextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    @Override
+    public int line(int node) {
+        return lines[node];
+    }
+
+    @Override
+    public int column(int node) {
+        return columns[node];
+    }
+}
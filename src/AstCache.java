@@ -0,0 +1,70 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Cache on disk of the simplified trees of the programs, so that the lexing and the parsing
+ * of a source already compiled are skipped.
+ * <br>
+ * A tree is stored in a FlatTreeFile named after the SHA-256 of the version of the compiler,
+ * the options changing the tree and the bytes of the source. The tree is the one simplified
+ * by the passes of the compiler, so a new compiler never uses the tree of an older one.
+ * A hit maps the file and returns the tree read from the mapping.
+ */
+class AstCache extends FileCache {
+    /**
+     * @param directory directory of the cache, created if needed
+     * @param maxSize maximum total size of the trees, in bytes
+     */
+    AstCache(Path directory, long maxSize) throws IOException {
+        super(directory, "AST", ".ast", maxSize);
+    }
+
+    /**
+     * Get the tree of a source
+     *
+     * @param source the bytes of the source
+     * @param options the options of the compilation changing the tree
+     * @return the tree, null if it isn't in the cache
+     */
+    FlatTree lookup(byte[] source, String options) throws IOException {
+        Path file = file(source, options);
+        FlatTree tree = null;
+        if (Files.exists(file)) {
+            try {
+                tree = FlatTreeFile.map(file);
+            } catch (IOException e) {
+                tree = null; // Evicted by another compiler
+            }
+            if (tree == null) {
+                Files.deleteIfExists(file); // Other version of the format or damaged file
+            }
+            else {
+                touch(file);
+            }
+        }
+
+        count(tree != null);
+        return tree;
+    }
+
+    /**
+     * Put the tree of a source in the cache, then evict the least recently used trees
+     * if the cache is too big.
+     *
+     * @param source the bytes of the source
+     * @param options the options of the compilation changing the tree
+     * @param tree the simplified tree of the source
+     */
+    void store(byte[] source, String options, FlatTree tree) throws IOException {
+        store(file(source, options), file -> FlatTreeFile.write(tree, file));
+    }
+
+    /**
+     * @return the file of the tree of a source
+     */
+    private Path file(byte[] source, String options) throws IOException {
+        return file(version(), options.getBytes(StandardCharsets.UTF_8), source);
+    }
+}
@@ -0,0 +1,374 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A parser building directly the AbstractSyntaxTree of the program, without the ParseTree.
+ * <br>
+ * It follows the same grammar as the Parser but only creates the nodes that the
+ * AbstractSyntaxTree keeps: the lists of instructions are read with loops instead of the
+ * InstList/NextInst recursion, and the operations are built as binary trees while they are
+ * read (Prod and ExprArith, then CondAnd and Cond), left associative, with the operator at the
+ * top and the operands as children. This gives the same tree as the one created from the
+ * ParseTree by AbstractSyntaxTree, so the ParseTree is only needed to export it in LaTeX.
+ */
+class AstParser {
+    /**
+     * Stream of symbols for the input
+     */
+    private final TokenStream symbols;
+
+    AstParser(TokenStream symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * Thrown at the first syntax error to stop the parsing
+     */
+    private static class SyntaxError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int line;
+
+        SyntaxError(int line) {
+            super(null, null, false, false);
+            this.line = line;
+        }
+    }
+
+    /**
+     * Parse the symbols and return the abstract syntax tree if there is no syntax error.
+     *
+     * @return the abstract syntax tree of the program
+     */
+    AbstractSyntaxTree parse() {
+        try {
+            return Program();
+        } catch (SyntaxError e) {
+            System.out.println();
+            System.out.println("Syntax error at line " + e.line);
+            return null;
+        }
+    }
+
+    /**
+     * [1] <Program> -> begin <Code> end
+     */
+    private AbstractSyntaxTree Program() {
+        List<AbstractSyntaxTree> children = new ArrayList<>();
+        match(LexicalUnit.BEG);
+        add(children, Code());
+        match(LexicalUnit.END);
+        return node("<Program>", children);
+    }
+
+    /**
+     * [2] <Code> -> ε, [3] <Code> -> <InstList>, [4] <InstList> -> <Instruction> <NextInst>,
+     * [5] <NextInst> -> ε, [6] <NextInst> -> ; <InstList>
+     *
+     * @return the Code node with the instructions as children, null if there is no instruction
+     */
+    private AbstractSyntaxTree Code() {
+        if (!isInstruction(lookahead())) {
+            return null;
+        }
+
+        List<AbstractSyntaxTree> instructions = new ArrayList<>();
+        instructions.add(Instruction());
+        while (lookahead() == LexicalUnit.SEMICOLON) {
+            match(LexicalUnit.SEMICOLON);
+            if (!isInstruction(lookahead())) {
+                break; // As in the Parser, a ';' can end the list
+            }
+            instructions.add(Instruction());
+        }
+        return node("<Code>", instructions);
+    }
+
+    /**
+     * [7-12] <Instruction> -> <Assign> | <If> | <While> | <For> | <Print> | <Read>
+     */
+    private AbstractSyntaxTree Instruction() {
+        switch (lookahead()) {
+            case VARNAME:
+                return Assign();
+            case IF:
+                return If();
+            case WHILE:
+                return While();
+            case FOR:
+                return For();
+            case PRINT:
+                return Print();
+            default:
+                return Read();
+        }
+    }
+
+    /**
+     * Check if an instruction can start with the lexical unit
+     */
+    private static boolean isInstruction(LexicalUnit unit) {
+        switch (unit) {
+            case VARNAME:
+            case IF:
+            case WHILE:
+            case FOR:
+            case PRINT:
+            case READ:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * [13] <Assign> -> [VarName] := <ExprArith>
+     */
+    private AbstractSyntaxTree Assign() {
+        List<AbstractSyntaxTree> children = new ArrayList<>();
+        children.add(leaf(LexicalUnit.VARNAME));
+        match(LexicalUnit.ASSIGN);
+        children.add(ExprArith());
+        return node("<Assign>", children);
+    }
+
+    /**
+     * [26] <If> -> if <Cond> then <Code> <IfSeq>, [27] <IfSeq> -> endif, [28] <IfSeq> -> else <Code> endif
+     */
+    private AbstractSyntaxTree If() {
+        List<AbstractSyntaxTree> children = new ArrayList<>();
+        match(LexicalUnit.IF);
+        children.add(Cond());
+        match(LexicalUnit.THEN);
+        add(children, Code());
+        if (lookahead() == LexicalUnit.ELSE) {
+            children.add(leaf(LexicalUnit.ELSE));
+            add(children, Code());
+        }
+        match(LexicalUnit.ENDIF);
+        return node("<If>", children);
+    }
+
+    /**
+     * [44] <While> -> while <Cond> do <Code> endwhile
+     */
+    private AbstractSyntaxTree While() {
+        List<AbstractSyntaxTree> children = new ArrayList<>();
+        match(LexicalUnit.WHILE);
+        children.add(Cond());
+        match(LexicalUnit.DO);
+        add(children, Code());
+        match(LexicalUnit.ENDWHILE);
+        return node("<While>", children);
+    }
+
+    /**
+     * [45] <For> -> for [VarName] from <ExprArith> by <ExprArith> to <ExprArith> do <Code> endwhile
+     */
+    private AbstractSyntaxTree For() {
+        List<AbstractSyntaxTree> children = new ArrayList<>();
+        match(LexicalUnit.FOR);
+        children.add(leaf(LexicalUnit.VARNAME));
+        match(LexicalUnit.FROM);
+        children.add(ExprArith());
+        match(LexicalUnit.BY);
+        children.add(ExprArith());
+        match(LexicalUnit.TO);
+        children.add(ExprArith());
+        match(LexicalUnit.DO);
+        add(children, Code());
+        match(LexicalUnit.ENDWHILE);
+        return node("<For>", children);
+    }
+
+    /**
+     * [46] <Print> -> print([VarName])
+     */
+    private AbstractSyntaxTree Print() {
+        List<AbstractSyntaxTree> children = new ArrayList<>();
+        match(LexicalUnit.PRINT);
+        match(LexicalUnit.LEFT_PARENTHESIS);
+        children.add(leaf(LexicalUnit.VARNAME));
+        match(LexicalUnit.RIGHT_PARENTHESIS);
+        return node("<Print>", children);
+    }
+
+    /**
+     * [47] <Read> -> read([VarName])
+     */
+    private AbstractSyntaxTree Read() {
+        List<AbstractSyntaxTree> children = new ArrayList<>();
+        match(LexicalUnit.READ);
+        match(LexicalUnit.LEFT_PARENTHESIS);
+        children.add(leaf(LexicalUnit.VARNAME));
+        match(LexicalUnit.RIGHT_PARENTHESIS);
+        return node("<Read>", children);
+    }
+
+    /**
+     * [14] <ExprArith> -> <Prod> <ExprArith'>, [15-17] <ExprArith'> -> + <Prod> <ExprArith'> | - <Prod> <ExprArith'> | ε
+     */
+    private AbstractSyntaxTree ExprArith() {
+        AbstractSyntaxTree left = Prod();
+        while (lookahead() == LexicalUnit.PLUS || lookahead() == LexicalUnit.MINUS) {
+            Symbol operator = symbols.next();
+            left = operation(operator, left, Prod());
+        }
+        return left;
+    }
+
+    /**
+     * [18] <Prod> -> <Atom> <Prod'>, [19-21] <Prod'> -> * <Atom> <Prod'> | / <Atom> <Prod'> | ε
+     */
+    private AbstractSyntaxTree Prod() {
+        AbstractSyntaxTree left = Atom();
+        while (lookahead() == LexicalUnit.TIMES || lookahead() == LexicalUnit.DIVIDE) {
+            Symbol operator = symbols.next();
+            left = operation(operator, left, Atom());
+        }
+        return left;
+    }
+
+    /**
+     * [22] <Atom> -> - <Atom>, [23] <Atom> -> [Number], [24] <Atom> -> [VarName], [25] <Atom> -> ( <ExprArith> )
+     */
+    private AbstractSyntaxTree Atom() {
+        switch (lookahead()) {
+            case MINUS:
+                Symbol operator = symbols.next();
+                return operation(operator, Atom());
+            case NUMBER:
+            case VARNAME:
+                return new AbstractSyntaxTree(symbols.next());
+            case LEFT_PARENTHESIS:
+                match(LexicalUnit.LEFT_PARENTHESIS);
+                AbstractSyntaxTree expression = ExprArith();
+                match(LexicalUnit.RIGHT_PARENTHESIS);
+                return expression;
+            default:
+                throw error();
+        }
+    }
+
+    /**
+     * [29] <Cond> -> <CondAnd> <Cond'>, [30-31] <Cond'> -> or <CondAnd> <Cond'> | ε
+     */
+    private AbstractSyntaxTree Cond() {
+        AbstractSyntaxTree left = CondAnd();
+        while (lookahead() == LexicalUnit.OR) {
+            Symbol operator = symbols.next();
+            left = operation(operator, left, CondAnd());
+        }
+        return left;
+    }
+
+    /**
+     * [32] <CondAnd> -> <SimpleCond> <CondAnd'>, [33-34] <CondAnd'> -> and <SimpleCond> <CondAnd'> | ε
+     */
+    private AbstractSyntaxTree CondAnd() {
+        AbstractSyntaxTree left = SimpleCond();
+        while (lookahead() == LexicalUnit.AND) {
+            Symbol operator = symbols.next();
+            left = operation(operator, left, SimpleCond());
+        }
+        return left;
+    }
+
+    /**
+     * [35] <SimpleCond> -> <ExprArith> <SimpleCond'>, [36] <SimpleCond> -> not <SimpleCond>,
+     * [37] <SimpleCond> -> (<Cond>), [38-43] <SimpleCond'> -> comparator <ExprArith>
+     */
+    private AbstractSyntaxTree SimpleCond() {
+        switch (lookahead()) {
+            case NOT:
+                Symbol operator = symbols.next();
+                return operation(operator, SimpleCond());
+            case LEFT_PARENTHESIS:
+                match(LexicalUnit.LEFT_PARENTHESIS);
+                AbstractSyntaxTree condition = Cond();
+                match(LexicalUnit.RIGHT_PARENTHESIS);
+                return condition;
+            case VARNAME:
+            case NUMBER:
+            case MINUS:
+                AbstractSyntaxTree left = ExprArith();
+                switch (lookahead()) {
+                    case EQUAL:
+                    case DIFFERENT:
+                    case GREATER:
+                    case GREATER_EQUAL:
+                    case SMALLER:
+                    case SMALLER_EQUAL:
+                        Symbol comparator = symbols.next();
+                        return operation(comparator, left, ExprArith());
+                    default:
+                        return left; // As in the Parser, the comparison can be missing
+                }
+            default:
+                throw error();
+        }
+    }
+
+    /**
+     * Create an operation node with the operator at the top and the operands as children
+     */
+    private static AbstractSyntaxTree operation(Symbol operator, AbstractSyntaxTree... operands) {
+        List<AbstractSyntaxTree> children = new ArrayList<>(operands.length);
+        for (AbstractSyntaxTree operand : operands) {
+            children.add(operand);
+        }
+        return new AbstractSyntaxTree(operator, children);
+    }
+
+    /**
+     * Create a node labeled by a variable of the grammar
+     */
+    private static AbstractSyntaxTree node(String variable, List<AbstractSyntaxTree> children) {
+        return new AbstractSyntaxTree(new Symbol(null, variable), children);
+    }
+
+    /**
+     * Add the child if it is not null
+     */
+    private static void add(List<AbstractSyntaxTree> children, AbstractSyntaxTree child) {
+        if (child != null) {
+            children.add(child);
+        }
+    }
+
+    /**
+     * Match the terminal and create a leaf with it
+     */
+    private AbstractSyntaxTree leaf(LexicalUnit type) {
+        return new AbstractSyntaxTree(match(type));
+    }
+
+    /**
+     * Match the input with the lexical unit type. If the match is succesfull,
+     * the lookahead is incremented and becomes the next terminal of the input
+     *
+     * @param type lexical unit to be matched
+     * @return the matched terminal
+     * @throws SyntaxError if the next terminal isn't of this type
+     */
+    private Symbol match(LexicalUnit type) {
+        if (symbols.peekType() != type) {
+            throw error();
+        }
+        return symbols.next();
+    }
+
+    /**
+     * Syntax error on the next terminal of the input
+     */
+    private SyntaxError error() {
+        return new SyntaxError(symbols.peek().getLine());
+    }
+
+    /**
+     * @return return the type of the next symbol of the input
+     */
+    private LexicalUnit lookahead() {
+        return symbols.peekType();
+    }
+}
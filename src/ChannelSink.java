@@ -0,0 +1,107 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sink writing the code in a file through a FileChannel.
+ * The lines are encoded in a direct ByteBuffer which is written to the channel
+ * each time it is full.
+ */
+public class ChannelSink implements OutputSink {
+    /**
+     * Size of the buffer in bytes
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Channel on the output file
+     */
+    private final FileChannel channel;
+    /**
+     * Buffer of the encoded lines not yet written to the channel
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Encoder from the lines to the bytes of the buffer
+     */
+    private final CharsetEncoder encoder;
+
+    public ChannelSink(Path outputFile) throws IOException {
+        channel = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        encoder = StandardCharsets.UTF_8.newEncoder();
+    }
+
+    @Override
+    public void write(String line) throws IOException {
+        encode(CharBuffer.wrap(line));
+        encode(CharBuffer.wrap(System.lineSeparator()));
+    }
+
+    /**
+     * Encode the characters in the buffer, writing the buffer to the channel when it is full.
+     * As with the FileSink, a character which can't be encoded in UTF-8 is an error.
+     *
+     * @param chars the characters to encode
+     * @throws CharacterCodingException if the characters aren't valid
+     */
+    private void encode(CharBuffer chars) throws IOException {
+        CoderResult result = encoder.encode(chars, buffer, false);
+        while (result.isOverflow()) {
+            drain();
+            result = encoder.encode(chars, buffer, false);
+        }
+        if (result.isError()) {
+            result.throwException();
+        }
+        // Only the first half of a surrogate pair can be left, and it isn't followed by the second one
+        if (chars.hasRemaining()) {
+            throw new MalformedInputException(chars.remaining());
+        }
+    }
+
+    /**
+     * Write the whole content of the buffer to the channel and clear it.
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            // Let the encoder write what it keeps at the end of the input
+            CoderResult result = encoder.encode(CharBuffer.allocate(0), buffer, true);
+            while (result.isOverflow()) {
+                drain();
+                result = encoder.encode(CharBuffer.allocate(0), buffer, true);
+            }
+            result = encoder.flush(buffer);
+            while (result.isOverflow()) {
+                drain();
+                result = encoder.flush(buffer);
+            }
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
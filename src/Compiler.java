@@ -1,30 +1,37 @@
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
 
 /**
  * Class for the compiler.
- * The compiler can compile from an AbstractSyntaxTree.
+ * The compiler can compile from an AbstractSyntaxTree or from a FlatTree.
+ * An AbstractSyntaxTree is stored in a FlatTree first, so the code is always generated from a FlatTree.
+ * <br>
+ * The program is first translated in the IR, a function made of basic blocks, then the IrPrinter
+ * writes its LLVM IR code in the sink in one pass. By default the loop-invariant instructions are
+ * moved out of the loops and the IR is put in SSA form before being printed, so the variables are
+ * registers instead of allocas.
  */
 public class Compiler {
     /**
-     * Path to the .ll file for the compiled code
+     * Sink receiving the LLVM IR code
      */
-    private Path outputFile;
+    private final OutputSink output;
     /**
-     * Boolean equal to true if we write to file, false if we write on the stdin
+     * True if the loop-invariant instructions are moved out of the loops
      */
-    private final boolean toFile;
+    private final boolean licm;
     /**
-     * Number representing an unnamed variable, incremented each time the variable isn't used anymore
+     * True if the variables are put in registers, false to keep them in memory
      */
-    private int unnamedVar;
+    private final boolean ssa;
+    /**
+     * Description of the passes run on the last program compiled, one line for each pass
+     */
+    private String statistics;
     /**
      * Different index for each while loop to make each label unique
      */
@@ -38,32 +45,58 @@ public class Compiler {
      */
     private int ifIndex;
     /**
-     * List of all the variables used in the program
+     * Different index for each 'and' and 'or' of a condition, whose right operand has its own block
+     */
+    private int conditionIndex;
+    /**
+     * Alloca of each variable used in the program, by id
+     */
+    private IR.Instruction[] variables;
+    /**
+     * Ids of the variables whose alloca is already in the code, the others are only read
+     */
+    private BitSet allocated;
+    /**
+     * Function being generated
+     */
+    private IR.Function function;
+    /**
+     * Block receiving the instructions generated
      */
-    private List<String> variables;
+    private IR.Block block;
+    /**
+     * Tree being compiled
+     */
+    private FlatTree tree;
 
     public Compiler() {
-        this("");
+        this(new StdoutSink());
     }
 
-    public Compiler(String outputFilename) {
-        if (!outputFilename.equals("")) {
-            toFile = true;
-            outputFile = Paths.get(outputFilename);
-            try {
-                Files.write(outputFile, Collections.singleton(""), StandardCharsets.UTF_8); // Empty the file
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-        else {
-            toFile = false;
-        }
-        unnamedVar = 0;
-        whileIndex = 0;
-        forIndex = 0;
-        ifIndex = 0;
-        variables = new ArrayList<>();
+    public Compiler(String outputFilename) throws IOException {
+        this(outputFilename.equals("") ? new StdoutSink() : new FileSink(Paths.get(outputFilename)));
+    }
+
+    public Compiler(OutputSink output) {
+        this(output, true, true);
+    }
+
+    /**
+     * @param output sink receiving the LLVM IR code
+     * @param licm true to move the loop-invariant instructions out of the loops
+     * @param ssa true to put the variables in registers, false to keep them in memory
+     */
+    public Compiler(OutputSink output, boolean licm, boolean ssa) {
+        this.output = output;
+        this.licm = licm;
+        this.ssa = ssa;
+    }
+
+    /**
+     * @return the description of the passes run on the last program compiled, null if none was run
+     */
+    public String getStatistics() {
+        return statistics;
     }
 
     /**
@@ -73,539 +106,518 @@ public class Compiler {
      * @param AST AbstractSyntaxTree representing the ALGOL0 code to be compiled
      */
     public void compile(AbstractSyntaxTree AST) {
-        Program(AST);
+        compile(ArenaTree.of(AST));
     }
 
     /**
-     * Function representing the variable Program.
-     * Write the beginning of the program, then the code and finally the end of the program.
+     * Compile function which takes the program stored in a FlatTree and creates
+     * a LLVM IR code corresponding to its algorithm.
      *
-     * @param AST the AbstractSyntaxTree whose label is Program
+     * @param tree the tree of the ALGOL0 code to be compiled
      */
-    private void Program(AbstractSyntaxTree AST) {
-        begin();
-        Code(AST.childAt(0));
-        end();
+    public void compile(FlatTree tree) {
+        print(optimize(generate(tree)));
     }
 
     /**
-     * Write some LLVM functions to print and read from input.
-     * Then it writes the beginning of the main function.
+     * Translate the program stored in a FlatTree in the IR
+     *
+     * @param tree the tree of the ALGOL0 code
+     * @return the main function of the program
      */
-    private void begin() {
-        write("@.strP = private unnamed_addr constant [4 x i8] c\"%d\\0A\\00\", align 1\n" +
-                "\n" +
-                "; Function Attrs: nounwind uwtable\n" +
-                "define void @println(i32 %x) #0 {\n" +
-                "\t%1 = alloca i32, align 4\n" +
-                "\tstore i32 %x, i32* %1, align 4\n" +
-                "\t%2 = load i32, i32* %1, align 4\n" +
-                "\t%3 = call i32 (i8*, ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]* @.strP, i32 0, i32 0), i32 %2)\n" +
-                "\tret void\n" +
-                "}\n" +
-                "\n" +
-                "declare i32 @printf(i8*, ...) #1\n" +
-                "\n" +
-                "declare i32 @getchar()\n" +
-                "\n" +
-                "define i32 @readInt() {\n" +
-                "entry:\n" +
-                "\t%res = alloca i32\n" +
-                "\tstore i32 0, i32* %res\n" +
-                "\n" +
-                "\t%isNegative = alloca i1\n" +
-                "\t%number = alloca i32\n" +
-                "\t%0 = call i32 @getchar()\n" +
-                "\t\n" +
-                "\t%1 = icmp eq i32 %0, 45\n" +
-                "\tstore i1 %1, i1* %isNegative\n" +
-                "\tbr i1 %1, label %loop, label %firstIteration\n" +
-                "firstIteration:\n" +
-                "\t%2 = sub i32 %0, 48\n" +
-                "\tstore i32 %2, i32* %number\n" +
-                "\n" +
-                "\t%3 = icmp sge i32 %2, 0\n" +
-                "\t%4 = icmp sle i32 %2, 9\n" +
-                "\t%5 = and i1 %3, %4\n" +
-                "\tbr i1 %5, label %continue, label %exit\n" +
-                "loop:\n" +
-                "\t%6 = call i32 @getchar()\n" +
-                "\t%7 = sub i32 %6, 48\n" +
-                "\tstore i32 %7, i32* %number\n" +
-                "\n" +
-                "\t%8 = icmp sge i32 %7, 0\n" +
-                "\t%9 = icmp sle i32 %7, 9\n" +
-                "\t%10 = and i1 %8, %9\n" +
-                "\tbr i1 %10, label %continue, label %exit\n" +
-                "continue:\n" +
-                "\t%11 = load i32, i32* %res\n" +
-                "\t%12 = mul i32 %11, 10\n" +
-                "\t%13 = load i32, i32* %number\n" +
-                "\t%14 = add i32 %12, %13 \n" +
-                "\tstore i32 %14, i32* %res\n" +
-                "\n" +
-                "\tbr label %loop\n" +
-                "exit:\n" +
-                "\n" +
-                "\t%15 = load i1, i1* %isNegative\n" +
-                "\tbr i1 %15, label %ifNegative, label %endifNegative\n" +
-                "\n" +
-                "ifNegative:\n" +
-                "\t%16 = load i32, i32* %res\n" +
-                "\t%17 = mul i32 %16, -1\n" +
-                "\tstore i32 %17, i32* %res\n" +
-                "\n" +
-                "\tbr label %endifNegative\n" +
-                "endifNegative:\n" +
-                "\t%18 = load i32, i32* %res\n" +
-                "\tret i32 %18\n" +
-                "}\n" +
-                "\n" +
-                "\n" +
-                "define i32 @main() {\n" +
-                "entry:\n");
+    IR.Function generate(FlatTree tree) {
+        this.tree = tree;
+        begin();
+        Code(tree.firstChild(tree.root()));
+        this.tree = null;
+        return end();
     }
 
     /**
-     * For each instruction of the code the compilator calls the right function
-     * with the AST of the instruction as parameter.
+     * Run the passes on the IR of a program
      *
-     * @param AST the AbstractSyntaxTree whose label is Code
+     * @return the function given
      */
-    private void Code(AbstractSyntaxTree AST) {
-        for (AbstractSyntaxTree instruction : AST.getChildren()) {
-            switch (instruction.getLabel().getValue().toString()) {
-                case "<Assign>":
-                    Assign(instruction);
-                    break;
-                case "<Read>":
-                    Read(instruction);
-                    break;
-                case "<Print>":
-                    Print(instruction);
-                    break;
-                case "<While>":
-                    While(instruction, whileIndex);
-                    break;
-                case "<For>":
-                    For(instruction, forIndex);
-                    break;
-                case "<If>":
-                    If(instruction, ifIndex);
-                    break;
-            }
-            write(); // Empty line between each group of instruction
+    private IR.Function optimize(IR.Function main) {
+        statistics = null;
+        if (licm) {
+            statistics = LoopInvariantMover.move(main);
+        }
+        if (ssa) {
+            String built = SsaBuilder.build(main);
+            statistics = statistics == null ? built : statistics + "\n" + built;
         }
+        return main;
     }
 
     /**
-     * Write the end of the main function.
+     * Write the LLVM IR code of the main function of a program in the sink
      */
-    private void end() {
-        write("ret i32 0;\n}");
+    private void print(IR.Function main) {
+        try {
+            IrPrinter.print(main, output);
+            output.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     /**
-     * Call the readInt() function in the LLVM IR language and store the input into the variable.
-     *
-     * @param AST the AbstractSyntaxTree whose label is Read
+     * Close the sink of the compiler, writing everything that is still buffered.
      */
-    private void Read(AbstractSyntaxTree AST) {
-        String varName = AST.childAt(0).getLabel().getValue().toString();
-
-        if (!variables.contains(varName)) {
-            write("%" + varName + " = alloca i32");
-            variables.add(varName);
+    public void close() {
+        try {
+            output.close();
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+    }
 
-        write("%" + unnamedVar + " = call i32 @readInt()");
-        write("store i32 %" + unnamedVar + ", i32* %" + varName);
-        unnamedVar++;
+    /**
+     * Create the main function with its entry block.
+     */
+    private void begin() {
+        whileIndex = 0;
+        forIndex = 0;
+        ifIndex = 0;
+        conditionIndex = 0;
+        variables = new IR.Instruction[16];
+        allocated = new BitSet();
+        function = new IR.Function("main");
+        start(new IR.Block("entry"));
     }
 
     /**
-     * Call the println() function in the LLVM IR language on the variable.
+     * Return 0 at the end of the main function.
      *
-     * @param AST the AbstractSyntaxTree whose label is Print
+     * @return the main function
      */
-    private void Print(AbstractSyntaxTree AST) {
-        String varName = AST.childAt(0).getLabel().getValue().toString();
-        write("%" + unnamedVar + " = load i32, i32* %" + varName);
-        write("call void @println(i32 %" + unnamedVar + ")");
-        unnamedVar++;
+    private IR.Function end() {
+        emit(IR.ret(new IR.Constant(IR.Type.I32, 0)));
+        IR.Function main = function;
+        function = null;
+        block = null;
+        return main;
     }
 
     /**
-     * Write an if (/else) condition in the LLVM IR language by computing the condition and using
-     * the result to make a conditionnal jump in the code to the right label.
+     * For each instruction of the code the compilator calls the right function
+     * with the node of the instruction as parameter.
+     *
+     * @param code the index of the CODE node
+     */
+    private void Code(int code) {
+        for (int instruction = tree.firstChild(code); instruction != FlatTree.NONE; instruction = tree.nextSibling(instruction)) {
+            int variable = tree.firstChild(instruction);
+            switch (tree.kind(instruction)) {
+                case ASSIGN:
+                    assign(tree.identifier(variable), tree.nextSibling(variable));
+                    break;
+                case READ:
+                    Read(tree.identifier(variable));
+                    break;
+                case PRINT:
+                    Print(tree.identifier(variable));
+                    break;
+                case WHILE:
+                    While(instruction, whileIndex);
+                    break;
+                case FOR:
+                    For(instruction, forIndex);
+                    break;
+                case IF:
+                    If(instruction, ifIndex);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Write an if (/else) condition by computing the condition and using
+     * the result to make a conditionnal jump in the code to the right block.
      *
      * The compiler can also remove empty if (/else) conditions.
      *
-     * @param AST the AbstractSyntaxTree whose label is If
+     * @param node the index of the IF node
      */
-    private void If(AbstractSyntaxTree AST, int index) {
-        if (AST.numberOfChildren() == 1) {
-            return; // If the code of the if is empty we don't write it because it's useless
-        }
-        if (AST.numberOfChildren() == 2 && AST.childAt(1).getLabel().getType() == LexicalUnit.ELSE) {
+    private void If(int node, int index) {
+        int condition = tree.firstChild(node);
+        int thenCode = tree.nextSibling(condition);
+        int elseCode = tree.nextSibling(thenCode);
+        boolean withElse = elseCode != FlatTree.NONE && tree.firstChild(elseCode) != FlatTree.NONE; // True if there is an else
+        if (tree.firstChild(thenCode) == FlatTree.NONE && !withElse) {
             return; // If the code of the if and the else is empty we don't write it because it's useless
         }
         ifIndex++;
 
-        boolean withElse = AST.getChildren().size() >= 3; // True if there is an else
+        IR.Block ifBlock = new IR.Block("ifCode" + index);
+        IR.Block elseBlock = withElse ? new IR.Block("elseCode" + index) : null;
+        IR.Block endif = new IR.Block("endif" + index);
 
-        operate(AST.childAt(0));
+        condition(condition, ifBlock, withElse ? elseBlock : endif);
 
-        int cond = unnamedVar;
-        unnamedVar++;
-        if (withElse) {
-            write("\nbr i1 %" + cond + ", label %ifCode" + index + ", label %elseCode" + index);
-        } else {
-            write("\nbr i1 %" + cond + ", label %ifCode" + index + ", label %endif" + index);
-        }
-        write("ifCode" + index + ":");
-
-        if (AST.childAt(1).getLabel().getType() != LexicalUnit.ELSE) {
-            Code(AST.childAt(1));
-        }
-
-        write("br label %endif" + index);
+        start(ifBlock);
+        Code(thenCode);
+        emit(IR.br(endif));
 
         if (withElse) {
-            write("elseCode" + index + ":");
-
-            if (AST.numberOfChildren() == 3) {
-                if (AST.childAt(1).getLabel().getType() == LexicalUnit.ELSE) {
-                    Code(AST.childAt(2));
-                }
-                else {
-                    Code(AST.childAt(1));
-                }
-            }
-            else {
-                Code(AST.childAt(3));
-            }
-
-            write("br label %endif" + index);
+            start(elseBlock);
+            Code(elseCode);
+            emit(IR.br(endif));
         }
 
-        write("endif" + index + ":");
+        start(endif);
     }
 
     /**
-     * Write a for loop in the LLVM IR language by assigning the counter variable to
-     * the initial value then comparing the counter variable to the maximal value.
+     * Write a for loop by assigning the counter variable to the initial value then comparing
+     * the counter variable to the maximal value.
      *
-     * If the counter variable is less equal than the maximal value, we do the code of the
+     * If the counter variable is less than the maximal value, we do the code of the
      * for loop then increment the counter variable by the increment value.
      *
      * The compiler can also remove empty for loops.
      *
-     * @param AST the AbstractSyntaxTree whose label is While
+     * @param node the index of the FOR node
      */
-    private void For(AbstractSyntaxTree AST, int index) {
-        if (AST.numberOfChildren() < 5) {
+    private void For(int node, int index) {
+        int variableNode = tree.firstChild(node);
+        int from = tree.nextSibling(variableNode);
+        int by = tree.nextSibling(from);
+        int to = tree.nextSibling(by);
+        int body = tree.nextSibling(to);
+        if (tree.firstChild(body) == FlatTree.NONE) {
             return; // If the code of the for loop is empty we don't write it because it's useless
         }
         forIndex++;
 
+        IR.Block forCond = new IR.Block("forCond" + index);
+        IR.Block forCode = new IR.Block("forCode" + index);
+        IR.Block endfor = new IR.Block("endfor" + index);
+
         /*
         Creation of the variable of the for loop
          */
-        String varName = Assign(AST);
+        IR.Instruction variable = assign(tree.identifier(variableNode), from);
 
-        write("br label %forCond" + index);
-        write("forCond" + index + ":");
+        emit(IR.br(forCond));
+        start(forCond);
 
-        operate(AST.childAt(0)); // Load i into an unnamed variable
-        int i = unnamedVar;
-        unnamedVar++;
+        IR.Value i = emit(IR.load(variable));
 
         /*
         Comparison of the variable with the maximal value
          */
-        AbstractSyntaxTree maxValue = AST.childAt(3);
-        boolean maxValueIsNumber = maxValue.getLabel().getType() == LexicalUnit.NUMBER;
-        int m;
-        if (maxValueIsNumber) {
-            m = (int) maxValue.getLabel().getValue();
-        }
-        else {
-            operate(maxValue);
-            m = unnamedVar;
-            unnamedVar++;
-        }
-
-        int cond = unnamedVar;
-        unnamedVar++;
-        StringBuilder llCode = new StringBuilder("%" + cond + " = icmp slt i32 %" + i + ", ");
-        if (!maxValueIsNumber) {
-            llCode.append("%");
-        }
-        llCode.append(m);
-
-        write(llCode.toString());
+        IR.Value maxValue = value(to, IR.Type.I32);
+        IR.Value cond = emit(IR.binary(IR.Opcode.SLT, IR.Type.I32, i, maxValue));
 
         /*
         Beginning of the inner code of the for loop
          */
-        write("\nbr i1 %" + cond + ", label %forCode" + index + ", label %endfor" + index);
-        write("forCode" + index + ":");
+        emit(IR.condBr(cond, forCode, endfor));
+        start(forCode);
 
-        Code(AST.childAt(4));
+        Code(body);
 
         /*
         Increment the value of the variable
          */
-        AbstractSyntaxTree increment = AST.childAt(2);
-        boolean incrementIsNumber = increment.getLabel().getType() == LexicalUnit.NUMBER;
-        if (incrementIsNumber) {
-            m = (int) increment.getLabel().getValue();
-        }
-        else {
-            operate(increment);
-            m = unnamedVar;
-            unnamedVar++;
-        }
-
-        int p = unnamedVar;
-        llCode = new StringBuilder("%" + p + " = add i32 %" + i + ", ");
-        if (!incrementIsNumber) {
-            llCode.append("%");
-        }
-        llCode.append(m);
-
-        write(llCode.toString());
-
-        write("store i32 %" + p + ", i32* %" + varName);
-        unnamedVar++;
+        IR.Value increment = value(by, IR.Type.I32);
+        emit(IR.store(emit(IR.binary(IR.Opcode.ADD, IR.Type.I32, i, increment)), variable));
 
         /*
         End of the for loop
          */
-        write("br label %forCond" + index);
-        write("endfor" + index + ":");
+        emit(IR.br(forCond));
+        start(endfor);
     }
 
     /**
-     * Write a while loop in the LLVM IR language by computing the condition and using
-     * the result to make a conditionnal jump in the code to the right label.
+     * Write a while loop by computing the condition and using the result to make
+     * a conditionnal jump in the code to the right block.
      *
      * The compiler can also remove empty while loops.
      *
-     * @param AST the AbstractSyntaxTree whose label is While
+     * @param node the index of the WHILE node
      */
-    private void While(AbstractSyntaxTree AST, int index) {
-        if (AST.numberOfChildren() < 2) {
+    private void While(int node, int index) {
+        int condition = tree.firstChild(node);
+        int body = tree.nextSibling(condition);
+        if (tree.firstChild(body) == FlatTree.NONE) {
             return; // If the code of the while loop is empty we don't write it because it's useless
         }
         whileIndex++;
 
-        write("br label %whileCond" + index);
-        write("whileCond" + index + ":");
+        IR.Block whileCond = new IR.Block("whileCond" + index);
+        IR.Block whileCode = new IR.Block("whileCode" + index);
+        IR.Block endwhile = new IR.Block("endwhile" + index);
 
-        operate(AST.childAt(0));
+        emit(IR.br(whileCond));
+        start(whileCond);
 
-        int cond = unnamedVar;
-        unnamedVar++;
-        write("\nbr i1 %" + cond + ", label %whileCode" + index + ", label %endwhile" + index);
-        write("whileCode" + index + ":");
+        condition(condition, whileCode, endwhile);
 
-        Code(AST.childAt(1));
+        start(whileCode);
+        Code(body);
+        emit(IR.br(whileCond));
 
-        write("br label %whileCond" + index);
-        write("endwhile" + index + ":");
+        start(endwhile);
     }
 
     /**
-     * Call the corresponding operation with the good operator.
-     * If the AST is a VarName, we load it.
+     * Jump to a block if a condition is true, to another one otherwise. The 'and', the 'or' and
+     * the 'not' are jumps, so an operand deciding the condition skips the computation of the next one.
+     * A constant condition needs no test.
+     * <br>
+     * The operands are walked with an explicit stack, so that a condition with many operands doesn't
+     * overflow the stack. An entry of the stack is a condition with its two blocks, or NONE with
+     * the block to start between the operands of an 'and' or an 'or'.
      *
-     * @param AST the AST corresponding to the operator
-     */
-    private void operate(AbstractSyntaxTree AST) {
-        switch (AST.getLabel().getType()) {
-            case VARNAME:
-                write("%" + unnamedVar + " = load i32, i32* %" + AST.getLabel().getValue());
-                break;
-            case PLUS:
-                operation(AST, "add");
-                break;
-            case MINUS:
-                operation(AST, "sub");
-                break;
-            case TIMES:
-                operation(AST, "mul");
-                break;
-            case DIVIDE:
-                operation(AST, "sdiv");
-                break;
-            case AND:
-                operation(AST, "and", true);
-                break;
-            case OR:
-                operation(AST, "or", true);
-                break;
-            case NOT:
-                operation(AST, "not", true);
-                break;
-            case EQUAL:
-                operation(AST, "icmp eq");
-                break;
-            case DIFFERENT:
-                operation(AST, "icmp ne");
-                break;
-            case GREATER:
-                operation(AST, "icmp sgt");
-                break;
-            case GREATER_EQUAL:
-                operation(AST, "icmp sge");
-                break;
-            case SMALLER:
-                operation(AST, "icmp slt");
-                break;
-            case SMALLER_EQUAL:
-                operation(AST, "icmp sle");
-                break;
+     * @param node the index of the node of the condition
+     * @param ifTrue the block to jump to if the condition is true
+     * @param ifFalse the block to jump to if the condition is false
+     */
+    private void condition(int node, IR.Block ifTrue, IR.Block ifFalse) {
+        Deque<Integer> conditions = new ArrayDeque<>();
+        Deque<IR.Block> trueBlocks = new ArrayDeque<>();
+        Deque<IR.Block> falseBlocks = new ArrayDeque<>();
+        conditions.push(node);
+        trueBlocks.push(ifTrue);
+        falseBlocks.push(ifFalse);
+
+        while (!conditions.isEmpty()) {
+            node = conditions.pop();
+            ifTrue = trueBlocks.pop();
+            ifFalse = falseBlocks.pop();
+            if (node == FlatTree.NONE) {
+                start(ifTrue);
+                continue;
+            }
+
+            int left = tree.firstChild(node);
+            switch (tree.kind(node)) {
+                case AND:
+                case OR: {
+                    boolean and = tree.kind(node) == NodeKind.AND;
+                    IR.Block right = new IR.Block((and ? "and" : "or") + conditionIndex++);
+                    // Pushed in the reverse order: the left operand, the block of the right one, the right operand
+                    conditions.push(tree.nextSibling(left));
+                    trueBlocks.push(ifTrue);
+                    falseBlocks.push(ifFalse);
+                    conditions.push(FlatTree.NONE);
+                    trueBlocks.push(right);
+                    falseBlocks.push(right);
+                    conditions.push(left);
+                    trueBlocks.push(and ? right : ifTrue);
+                    falseBlocks.push(and ? ifFalse : right);
+                    break;
+                }
+                case NOT:
+                    conditions.push(left);
+                    trueBlocks.push(ifFalse);
+                    falseBlocks.push(ifTrue);
+                    break;
+                case CONSTANT:
+                    emit(IR.br(tree.value(node) != 0 ? ifTrue : ifFalse));
+                    break;
+                default:
+                    emit(IR.condBr(value(node, IR.Type.I1), ifTrue, ifFalse));
+            }
         }
     }
 
     /**
-     * Creates a new variable in LLVM IR code and store the result of the right term in the variable.
+     * Allocate the variable if needed and store the value of the expression in it.
      *
-     * @param AST the AbstractSyntaxTree whose label is Assign
-     * @return the name of the variable
+     * @param identifier the variable
+     * @param expression the index of the node of the expression
+     * @return the alloca of the variable
      */
-    private String Assign(AbstractSyntaxTree AST) {
-        String varName = AST.childAt(0).getLabel().getValue().toString();
+    private IR.Instruction assign(Identifier identifier, int expression) {
+        IR.Instruction variable = allocate(identifier);
+        emit(IR.store(value(expression, IR.Type.I32), variable));
+        return variable;
+    }
 
-        if (!variables.contains(varName)) {
-            write("%" + varName + " = alloca i32");
-            variables.add(varName);
-        }
+    /**
+     * Compute the value of an operand. A number is used as it is, a variable is loaded and an
+     * operation is computed by a new instruction, after its operands.
+     * <br>
+     * The operations are walked in post-order with an explicit stack, so that an expression with
+     * many terms doesn't overflow the stack: an operator is pushed again as its bitwise complement,
+     * to be computed when the values of its operands are on the top of the stack of values.
+     *
+     * @param term the index of the node of the operand
+     * @param type the type of the operand
+     * @return the operand
+     */
+    private IR.Value value(int term, IR.Type type) {
+        Deque<Integer> nodes = new ArrayDeque<>();
+        Deque<IR.Type> types = new ArrayDeque<>();
+        Deque<IR.Value> values = new ArrayDeque<>();
+        nodes.push(term);
+        types.push(type);
+
+        while (!nodes.isEmpty()) {
+            int node = nodes.pop();
+            IR.Type nodeType = types.pop();
+            if (node < 0) {
+                values.push(operation(~node, values));
+                continue;
+            }
 
-        AbstractSyntaxTree rightTerm = AST.childAt(1);
-        boolean rightIsNumber = rightTerm.getLabel().getType() == LexicalUnit.NUMBER;
-        int m;
-        if (rightIsNumber) {
-            m = (int) rightTerm.getLabel().getValue();
-        }
-        else {
-            operate(rightTerm);
-            m = unnamedVar;
-            unnamedVar++;
+            switch (tree.kind(node)) {
+                case CONSTANT:
+                    values.push(new IR.Constant(nodeType, tree.value(node)));
+                    break;
+                case VARIABLE:
+                    values.push(emit(IR.load(variable(tree.identifier(node)))));
+                    break;
+                default:
+                    IR.Type operandType = operandType(tree.kind(node));
+                    int left = tree.firstChild(node);
+                    int right = tree.nextSibling(left);
+                    nodes.push(~node);
+                    types.push(nodeType);
+                    // The right operand is pushed first, so that the left one is computed first
+                    if (right != FlatTree.NONE) {
+                        nodes.push(right);
+                        types.push(operandType);
+                    }
+                    nodes.push(left);
+                    types.push(operandType);
+            }
         }
+        return values.pop();
+    }
 
-        StringBuilder llCode = new StringBuilder("store i32 ");
-
-        if (!rightIsNumber) {
-            llCode.append("%");
+    /**
+     * Compute an operation whose operands are computed. The unary operations are computed
+     * as a subtraction from a constant: 0 - x for the '-' and 1 - x for the 'not'.
+     *
+     * @param node the index of the node of the operator
+     * @param values the values computed, with the operands of the operation on the top
+     * @return the instruction of the operation
+     */
+    private IR.Instruction operation(int node, Deque<IR.Value> values) {
+        NodeKind kind = tree.kind(node);
+        IR.Type type = operandType(kind);
+        if (kind == NodeKind.NEG || kind == NodeKind.NOT) {
+            return emit(IR.binary(IR.Opcode.SUB, type, new IR.Constant(type, type == IR.Type.I1 ? 1 : 0), values.pop()));
         }
-        llCode.append(m);
-        llCode.append(", i32* %");
-        llCode.append(varName);
+        IR.Value right = values.pop();
+        IR.Value left = values.pop();
+        return emit(IR.binary(opcode(kind), type, left, right));
+    }
 
-        write(llCode.toString());
+    /**
+     * @return I1 for the operands of the logical operators, I32 for the other ones
+     */
+    private static IR.Type operandType(NodeKind kind) {
+        return kind == NodeKind.AND || kind == NodeKind.OR || kind == NodeKind.NOT ? IR.Type.I1 : IR.Type.I32;
+    }
 
-        return varName;
+    /**
+     * @return the instruction computing a binary operator
+     */
+    private static IR.Opcode opcode(NodeKind kind) {
+        switch (kind) {
+            case ADD:
+                return IR.Opcode.ADD;
+            case SUB:
+                return IR.Opcode.SUB;
+            case MUL:
+                return IR.Opcode.MUL;
+            case DIV:
+                return IR.Opcode.SDIV;
+            case AND:
+                return IR.Opcode.AND;
+            case OR:
+                return IR.Opcode.OR;
+            case EQ:
+                return IR.Opcode.EQ;
+            case NE:
+                return IR.Opcode.NE;
+            case GT:
+                return IR.Opcode.SGT;
+            case GE:
+                return IR.Opcode.SGE;
+            case LT:
+                return IR.Opcode.SLT;
+            case LE:
+                return IR.Opcode.SLE;
+            default:
+                throw new IllegalArgumentException("Not an expression: " + kind);
+        }
     }
 
     /**
-     * Function handling operations between integers given the AST corresponding to the operator
-     * and the string for the operator in the LLVM IR language.
+     * Call the readInt() function and store the input into the variable.
      *
-     * @param AST the AST corresponding to the operator
-     * @param operator the operator in the LLVM IR language
+     * @param identifier the variable
      */
-    private void operation(AbstractSyntaxTree AST, String operator) {
-        operation(AST, operator, false);
+    private void Read(Identifier identifier) {
+        IR.Instruction variable = allocate(identifier);
+        emit(IR.store(emit(IR.read()), variable));
     }
 
     /**
-     * Function handling operations given the AST corresponding to the operator
-     * and the string for the operator in the LLVM IR language.
+     * Call the println() function on the variable.
      *
-     * @param AST the AST corresponding to the operator
-     * @param operator the operator in the LLVM IR language
-     * @param isBoolean true if the type of the operand is a boolean, false if it's an integer
-     */
-    private void operation(AbstractSyntaxTree AST, String operator, boolean isBoolean) {
-        int size = 2;
-        if (operator.equals("not")) {
-            isBoolean = true;
-            size = 1;
-        }
-
-        boolean[] isNumber = new boolean[size];
-        int[] variables = new int[size];
-        for (int i = 0; i < size; i++) {
-            AbstractSyntaxTree term = AST.childAt(i);
+     * @param identifier the variable
+     */
+    private void Print(Identifier identifier) {
+        emit(IR.print(emit(IR.load(variable(identifier)))));
+    }
 
-            isNumber[i] = term.getLabel().getType() == LexicalUnit.NUMBER;
-            if (isNumber[i]) {
-                variables[i] = (int) term.getLabel().getValue();
-            }
-            else {
-                operate(term);
-                variables[i] = unnamedVar;
-                unnamedVar++;
-            }
+    /**
+     * Allocate the variable if it is the first time it is assigned.
+     *
+     * @param identifier the identifier of the variable
+     * @return the alloca of the variable
+     */
+    private IR.Instruction allocate(Identifier identifier) {
+        IR.Instruction variable = variable(identifier);
+        if (!allocated.get(identifier.getId())) {
+            emit(variable);
+            allocated.set(identifier.getId());
         }
+        return variable;
+    }
 
-        StringBuilder llCode;
-        int p = unnamedVar;
-        int n = variables[0];
-        int type = isBoolean ? 1 : 32;
-
-        if (operator.equals("not")) {
-            llCode = new StringBuilder("%" + p + " = sub i" + type + " 1, ");
-
-            if (!isNumber[0]) {
-                llCode.append("%");
-            }
-            llCode.append(n);
+    /**
+     * Get the alloca of a variable. A variable read before being assigned has its alloca,
+     * added in the code when it is assigned, so that the reads and the writes use the same one.
+     *
+     * @param identifier the identifier of the variable
+     * @return the alloca of the variable
+     */
+    private IR.Instruction variable(Identifier identifier) {
+        int id = identifier.getId();
+        if (id >= variables.length) {
+            variables = Arrays.copyOf(variables, Math.max(2 * variables.length, id + 1));
         }
-        else {
-            llCode = new StringBuilder("%" + p + " = " + operator + " i" + type + " ");
-
-            if (!isNumber[0]) {
-                llCode.append("%");
-            }
-            llCode.append(n);
-
-            int m = variables[1];
-
-            llCode.append(", ");
-            if (!isNumber[1]) {
-                llCode.append("%");
-            }
-            llCode.append(m);
+        if (variables[id] == null) {
+            variables[id] = IR.alloca(identifier.getName());
         }
-
-        write(llCode.toString());
+        return variables[id];
     }
 
     /**
-     * Write the string given in the code in a file or on the stdout
+     * Add an instruction at the end of the current block
+     *
+     * @return the instruction
      */
-    private void write(String llCode) {
-        if(toFile) {
-            try {
-                Files.write(outputFile, Collections.singleton(llCode), StandardCharsets.UTF_8,
-                        StandardOpenOption.APPEND);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-        else {
-            System.out.println(llCode);
-        }
+    private IR.Instruction emit(IR.Instruction instruction) {
+        block.instructions.add(instruction);
+        return instruction;
     }
 
     /**
-     * Write an empty line in the code
+     * Add a block at the end of the function, the next instructions are added in it
      */
-    private void write() {
-        write("");
+    private void start(IR.Block next) {
+        function.blocks.add(next);
+        block = next;
     }
 }
@@ -0,0 +1,262 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Pass on the simplified AbstractSyntaxTree computing at compile time what doesn't depend
+ * on the variables.
+ * <br>
+ * An operation whose operands are all numbers is replaced by the number of its result,
+ * with the wraparound of the i32 of LLVM. The conditions are computed the same way, true
+ * being the number 1 and false the number 0. A division by zero and the division of the
+ * smallest i32 by -1 are left to the execution, since their result isn't defined.
+ * <br>
+ * The operations with a neutral or an absorbing element are also simplified:
+ * x + 0, x - 0, x * 1, x / 1, x * 0, - - x, not not c, not (x &lt; y), c and true, c or false...
+ */
+final class ConstantFolder {
+    /**
+     * Number of nodes removed from the tree
+     */
+    private int removed;
+
+    private ConstantFolder() {
+        removed = 0;
+    }
+
+    /**
+     * Fold the constants of a tree, in place
+     *
+     * @param AST the simplified tree of the program
+     * @return the number of nodes removed from the tree
+     */
+    static int fold(AbstractSyntaxTree AST) {
+        ConstantFolder folder = new ConstantFolder();
+        folder.foldTree(AST);
+        return folder.removed;
+    }
+
+    /**
+     * Fold the nodes from the leaves to the root: in the reverse of the pre-order, a node is
+     * reached after all the nodes below him, so when the operations among its children are
+     * folded, their own operands are already folded.
+     */
+    private void foldTree(AbstractSyntaxTree AST) {
+        List<AbstractSyntaxTree> nodes = new ArrayList<>();
+        Deque<AbstractSyntaxTree> stack = new ArrayDeque<>();
+        stack.push(AST);
+        while (!stack.isEmpty()) {
+            AbstractSyntaxTree node = stack.pop();
+            nodes.add(node);
+            for (AbstractSyntaxTree child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            List<AbstractSyntaxTree> children = nodes.get(i).getChildren();
+            for (int j = 0; j < children.size(); j++) {
+                AbstractSyntaxTree child = children.get(j);
+                if (child.getLabel().isTerminal() && child.numberOfChildren() > 0) {
+                    children.set(j, foldOperation(child));
+                }
+            }
+        }
+    }
+
+    /**
+     * Fold an operation whose operands are already folded
+     *
+     * @param node the node of the operator
+     * @return the node replacing it, or the node itself
+     */
+    private AbstractSyntaxTree foldOperation(AbstractSyntaxTree node) {
+        LexicalUnit type = node.getLabel().getType();
+        AbstractSyntaxTree left = node.childAt(0);
+
+        if (node.numberOfChildren() == 1) {
+            if (isNumber(left)) {
+                removed++;
+                return number(node, type == LexicalUnit.NOT ? 1 - value(left) : -value(left));
+            }
+            if (left.getLabel().getType() == type && left.numberOfChildren() == 1) {
+                removed += 2; // - - x and not not c
+                return left.childAt(0);
+            }
+            LexicalUnit inverse = inverse(left.getLabel().getType());
+            if (type == LexicalUnit.NOT && inverse != null) {
+                removed++;
+                Symbol label = left.getLabel();
+                return new AbstractSyntaxTree(new Symbol(inverse, label.getLine() - 1, label.getColumn()),
+                        left.getChildren());
+            }
+            return node;
+        }
+
+        AbstractSyntaxTree right = node.childAt(1);
+        if (isNumber(left) && isNumber(right)) {
+            Integer result = compute(type, value(left), value(right));
+            if (result != null) {
+                removed += 2;
+                return number(node, result);
+            }
+            return node;
+        }
+
+        switch (type) {
+            case PLUS:
+            case OR:
+                // 0 is neutral for the sum and false for the disjunction
+                if (is(left, 0)) {
+                    return keep(right);
+                }
+                if (is(right, 0)) {
+                    return keep(left);
+                }
+                if (type == LexicalUnit.OR && (is(left, 1) || is(right, 1))) {
+                    return absorb(node, 1);
+                }
+                break;
+            case MINUS:
+            case DIVIDE:
+                if (is(right, type == LexicalUnit.MINUS ? 0 : 1)) {
+                    return keep(left);
+                }
+                break;
+            case TIMES:
+            case AND:
+                // 1 is neutral for the product and true for the conjunction
+                if (is(left, 1)) {
+                    return keep(right);
+                }
+                if (is(right, 1)) {
+                    return keep(left);
+                }
+                if (is(left, 0) || is(right, 0)) {
+                    return absorb(node, 0);
+                }
+                break;
+        }
+        return node;
+    }
+
+    /**
+     * Compute an operation on two numbers
+     *
+     * @return the result, null if it isn't defined
+     */
+    private static Integer compute(LexicalUnit type, int left, int right) {
+        switch (type) {
+            case PLUS:
+                return left + right;
+            case MINUS:
+                return left - right;
+            case TIMES:
+                return left * right;
+            case DIVIDE:
+                if (right == 0 || (left == Integer.MIN_VALUE && right == -1)) {
+                    return null;
+                }
+                return left / right;
+            case AND:
+                return left & right;
+            case OR:
+                return left | right;
+            case EQUAL:
+                return left == right ? 1 : 0;
+            case DIFFERENT:
+                return left != right ? 1 : 0;
+            case GREATER:
+                return left > right ? 1 : 0;
+            case GREATER_EQUAL:
+                return left >= right ? 1 : 0;
+            case SMALLER:
+                return left < right ? 1 : 0;
+            case SMALLER_EQUAL:
+                return left <= right ? 1 : 0;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the comparison giving the opposite result, null if the type isn't a comparison
+     */
+    private static LexicalUnit inverse(LexicalUnit type) {
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case EQUAL:
+                return LexicalUnit.DIFFERENT;
+            case DIFFERENT:
+                return LexicalUnit.EQUAL;
+            case GREATER:
+                return LexicalUnit.SMALLER_EQUAL;
+            case GREATER_EQUAL:
+                return LexicalUnit.SMALLER;
+            case SMALLER:
+                return LexicalUnit.GREATER_EQUAL;
+            case SMALLER_EQUAL:
+                return LexicalUnit.GREATER;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Replace an operation by one of its operands, the operator and the other operand
+     * (a number) are removed
+     */
+    private AbstractSyntaxTree keep(AbstractSyntaxTree operand) {
+        removed += 2;
+        return operand;
+    }
+
+    /**
+     * Replace an operation by its absorbing element, all its nodes are removed
+     */
+    private AbstractSyntaxTree absorb(AbstractSyntaxTree node, int value) {
+        removed += size(node) - 1;
+        return number(node, value);
+    }
+
+    /**
+     * @return the number of nodes of a tree
+     */
+    private static int size(AbstractSyntaxTree AST) {
+        int size = 0;
+        Deque<AbstractSyntaxTree> stack = new ArrayDeque<>();
+        stack.push(AST);
+        while (!stack.isEmpty()) {
+            AbstractSyntaxTree node = stack.pop();
+            size++;
+            for (AbstractSyntaxTree child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return a number at the position of the node
+     */
+    private static AbstractSyntaxTree number(AbstractSyntaxTree node, int value) {
+        Symbol label = node.getLabel();
+        // The line of a Symbol is given from 0 and stored from 1
+        return new AbstractSyntaxTree(new Symbol(LexicalUnit.NUMBER, label.getLine() - 1, label.getColumn(), value));
+    }
+
+    private static boolean isNumber(AbstractSyntaxTree node) {
+        return node.getLabel().getType() == LexicalUnit.NUMBER;
+    }
+
+    private static boolean is(AbstractSyntaxTree node, int value) {
+        return isNumber(node) && value(node) == value;
+    }
+
+    private static int value(AbstractSyntaxTree node) {
+        return (int) node.getLabel().getValue();
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Control flow graph of the reachable blocks of a function, with their dominator tree.
+ * <br>
+ * The blocks are numbered in reverse post-order, so a block is numbered after its dominators.
+ * The immediate dominators are computed with the algorithm of Cooper, Harvey and Kennedy.
+ * The graph is a snapshot: it must be built again after blocks or jumps are changed.
+ */
+final class ControlFlowGraph {
+    /**
+     * Reachable blocks in reverse post-order, a block is referred to by its index in this list
+     */
+    final List<IR.Block> blocks;
+    private final Map<IR.Block, Integer> indices;
+    private final List<List<Integer>> predecessors;
+    /**
+     * Immediate dominator of each block, the entry is its own dominator
+     */
+    private final int[] dominators;
+
+    ControlFlowGraph(IR.Function function) {
+        blocks = new ArrayList<>();
+        indices = new IdentityHashMap<>();
+        predecessors = new ArrayList<>();
+        order(function.blocks.get(0));
+        dominators = new int[blocks.size()];
+        dominators();
+    }
+
+    /**
+     * @return the index of a block, -1 if it isn't reachable
+     */
+    int index(IR.Block block) {
+        Integer index = indices.get(block);
+        return index == null ? -1 : index;
+    }
+
+    List<Integer> predecessors(int block) {
+        return predecessors.get(block);
+    }
+
+    int dominator(int block) {
+        return dominators[block];
+    }
+
+    /**
+     * @return true if all the paths from the entry to a block go through another one, or if they are the same
+     */
+    boolean dominates(int dominator, int block) {
+        while (block > dominator) {
+            block = dominators[block];
+        }
+        return block == dominator;
+    }
+
+    /**
+     * @return the blocks the last instruction of a block can jump to
+     */
+    static List<IR.Block> successors(IR.Block block) {
+        IR.Instruction terminator = block.terminator();
+        return terminator == null ? new ArrayList<>(0) : terminator.targets;
+    }
+
+    /**
+     * Number the reachable blocks in reverse post-order and find their predecessors
+     */
+    private void order(IR.Block entry) {
+        List<IR.Block> postOrder = new ArrayList<>();
+        Map<IR.Block, Boolean> visited = new IdentityHashMap<>();
+        // Each block of the path with the index of its next successor to visit
+        Deque<IR.Block> path = new ArrayDeque<>();
+        Deque<Integer> next = new ArrayDeque<>();
+        visited.put(entry, true);
+        path.push(entry);
+        next.push(0);
+        while (!path.isEmpty()) {
+            List<IR.Block> successors = successors(path.peek());
+            int i = next.pop();
+            if (i < successors.size()) {
+                next.push(i + 1);
+                IR.Block successor = successors.get(i);
+                if (visited.put(successor, true) == null) {
+                    path.push(successor);
+                    next.push(0);
+                }
+            }
+            else {
+                postOrder.add(path.pop());
+            }
+        }
+
+        for (int i = postOrder.size() - 1; i >= 0; i--) {
+            indices.put(postOrder.get(i), blocks.size());
+            blocks.add(postOrder.get(i));
+            predecessors.add(new ArrayList<>(2));
+        }
+        for (int b = 0; b < blocks.size(); b++) {
+            for (IR.Block successor : successors(blocks.get(b))) {
+                predecessors.get(indices.get(successor)).add(b);
+            }
+        }
+    }
+
+    /**
+     * Compute the immediate dominators, iterating until they don't change
+     */
+    private void dominators() {
+        Arrays.fill(dominators, -1);
+        dominators[0] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int b = 1; b < blocks.size(); b++) {
+                int dominator = -1;
+                for (int predecessor : predecessors.get(b)) {
+                    if (dominators[predecessor] != -1) {
+                        dominator = dominator == -1 ? predecessor : intersect(predecessor, dominator);
+                    }
+                }
+                if (dominators[b] != dominator) {
+                    dominators[b] = dominator;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the nearest common dominator of two blocks
+     */
+    private int intersect(int a, int b) {
+        while (a != b) {
+            while (a > b) {
+                a = dominators[a];
+            }
+            while (b > a) {
+                b = dominators[b];
+            }
+        }
+        return a;
+    }
+}
@@ -0,0 +1,248 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pass on the folded AbstractSyntaxTree removing the branches and the loops whose condition is
+ * a constant, so that the compiler doesn't write their labels and their conditional jumps.
+ * <br>
+ * First, a variable assigned only once, by a number, in the code of the program itself (not in
+ * an if or a loop) is a constant after its assignment: its uses written after it are replaced
+ * by the number and the tree is folded again. Then, in each code:
+ * <ul>
+ *     <li>an if with a constant condition is replaced by the instructions of the branch taken,
+ *     which are merged in the code around it;</li>
+ *     <li>a while whose condition is false is removed;</li>
+ *     <li>the instructions after a while whose condition is true are never reached and are removed;</li>
+ *     <li>a for whose first value is already at least the last one only assigns its variable.</li>
+ * </ul>
+ */
+final class DeadCodeEliminator {
+    /**
+     * Number of branches and loops removed
+     */
+    private int removed;
+    /**
+     * Number of uses of variables replaced by their constant value
+     */
+    private int propagated;
+    /**
+     * Number of nodes removed by folding the tree again after the replacements
+     */
+    private int folded;
+
+    private DeadCodeEliminator() {
+        removed = 0;
+        propagated = 0;
+        folded = 0;
+    }
+
+    /**
+     * Remove the dead branches and loops of a tree, in place
+     *
+     * @param AST the folded tree of the program
+     * @return a description of what was removed, to be displayed
+     */
+    static String eliminate(AbstractSyntaxTree AST) {
+        DeadCodeEliminator eliminator = new DeadCodeEliminator();
+        eliminator.propagate(AST);
+        if (eliminator.propagated > 0) {
+            eliminator.folded = ConstantFolder.fold(AST);
+        }
+        eliminator.eliminateTree(AST);
+        return "Dead code elimination: " + eliminator.removed + " branches and loops removed, "
+                + eliminator.propagated + " uses of constant variables replaced, "
+                + eliminator.folded + " nodes removed by folding again";
+    }
+
+    /**
+     * Replace the uses of the variables assigned once by a number in the code of the program,
+     * when they are after the assignment.
+     */
+    private void propagate(AbstractSyntaxTree AST) {
+        if (AST.numberOfChildren() == 0) {
+            return; // Program without code
+        }
+        Set<AbstractSyntaxTree> instructions = new HashSet<>(AST.childAt(0).getChildren());
+        // The nodes in pre-order, which is the order of the source
+        List<AbstractSyntaxTree> nodes = preOrder(AST);
+
+        Map<Integer, Integer> assignments = new HashMap<>();
+        for (AbstractSyntaxTree node : nodes) {
+            if (is(node, "<Assign>") || is(node, "<Read>") || is(node, "<For>")) {
+                assignments.merge(id(node.childAt(0)), 1, Integer::sum);
+            }
+        }
+
+        // Constant value of each variable, put when its assignment is reached. A variable is
+        // after its assignment in the pre-order if and only if its parent is.
+        Map<Integer, Integer> constants = new HashMap<>();
+        for (AbstractSyntaxTree node : nodes) {
+            if (is(node, "<Assign>") && instructions.contains(node) && isNumber(node.childAt(1))
+                    && assignments.get(id(node.childAt(0))) == 1) {
+                constants.put(id(node.childAt(0)), value(node.childAt(1)));
+                continue;
+            }
+
+            List<AbstractSyntaxTree> children = node.getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                AbstractSyntaxTree child = children.get(i);
+                if (child.getLabel().getType() == LexicalUnit.VARNAME && constants.containsKey(id(child))
+                        && isExpression(node, i)) {
+                    Symbol label = child.getLabel();
+                    // The line of a Symbol is given from 0 and stored from 1
+                    children.set(i, new AbstractSyntaxTree(
+                            new Symbol(LexicalUnit.NUMBER, label.getLine() - 1, label.getColumn(), constants.get(id(child)))));
+                    propagated++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Simplify the codes from the leaves to the root, so that the instructions of a branch
+     * merged in a code are already simplified.
+     */
+    private void eliminateTree(AbstractSyntaxTree AST) {
+        List<AbstractSyntaxTree> nodes = preOrder(AST);
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            AbstractSyntaxTree node = nodes.get(i);
+            for (AbstractSyntaxTree child : node.getChildren()) {
+                if (is(child, "<Code>")) {
+                    // The compiler doesn't write a loop without instruction, even though a for assigns
+                    // its variable and a while can run forever, so a loop is never emptied.
+                    eliminate(child, is(node, "<While>") || is(node, "<For>"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Simplify the instructions of a code
+     *
+     * @param code the node of the code
+     * @param isLoop true if the code is the body of a loop, which can't become empty
+     */
+    private void eliminate(AbstractSyntaxTree code, boolean isLoop) {
+        List<AbstractSyntaxTree> instructions = code.getChildren();
+        List<AbstractSyntaxTree> simplified = new ArrayList<>(instructions.size());
+        int removedBefore = removed;
+        for (AbstractSyntaxTree instruction : instructions) {
+            if (!eliminate(instruction, simplified)) {
+                break; // The rest of the code is never reached
+            }
+        }
+
+        if (simplified.isEmpty() && isLoop) {
+            removed = removedBefore;
+        }
+        else {
+            instructions.clear();
+            instructions.addAll(simplified);
+        }
+    }
+
+    /**
+     * Add the simplification of an instruction to a code
+     *
+     * @param instruction the instruction
+     * @param code the instructions of the simplified code
+     * @return false if the instructions after this one are never reached
+     */
+    private boolean eliminate(AbstractSyntaxTree instruction, List<AbstractSyntaxTree> code) {
+        if (is(instruction, "<If>") && isNumber(instruction.childAt(0))) {
+            boolean taken = value(instruction.childAt(0)) != 0;
+            boolean inElse = false;
+            for (int i = 1; i < instruction.numberOfChildren(); i++) {
+                AbstractSyntaxTree child = instruction.childAt(i);
+                if (child.getLabel().getType() == LexicalUnit.ELSE) {
+                    inElse = true;
+                }
+                else if (taken != inElse) {
+                    code.addAll(child.getChildren());
+                }
+            }
+            removed++;
+            return true;
+        }
+
+        if (is(instruction, "<While>") && isNumber(instruction.childAt(0)) && hasBody(instruction, 1)) {
+            if (value(instruction.childAt(0)) == 0) {
+                removed++;
+                return true;
+            }
+            code.add(instruction);
+            return false;
+        }
+
+        if (is(instruction, "<For>") && isNumber(instruction.childAt(1)) && isNumber(instruction.childAt(3))
+                && value(instruction.childAt(1)) >= value(instruction.childAt(3)) && hasBody(instruction, 4)) {
+            List<AbstractSyntaxTree> children = new ArrayList<>(2);
+            children.add(instruction.childAt(0));
+            children.add(instruction.childAt(1));
+            code.add(new AbstractSyntaxTree(new Symbol(null, "<Assign>"), children));
+            removed++;
+            return true;
+        }
+
+        code.add(instruction);
+        return true;
+    }
+
+    /**
+     * Check if a loop has instructions, the compiler already removes the loops without instruction
+     *
+     * @param loop the node of the loop
+     * @param index the index of the code in the children of the loop
+     */
+    private static boolean hasBody(AbstractSyntaxTree loop, int index) {
+        return loop.numberOfChildren() > index && loop.childAt(index).numberOfChildren() > 0;
+    }
+
+    /**
+     * @return the nodes of a tree in pre-order
+     */
+    private static List<AbstractSyntaxTree> preOrder(AbstractSyntaxTree AST) {
+        List<AbstractSyntaxTree> nodes = new ArrayList<>();
+        Deque<AbstractSyntaxTree> stack = new ArrayDeque<>();
+        stack.push(AST);
+        while (!stack.isEmpty()) {
+            AbstractSyntaxTree node = stack.pop();
+            nodes.add(node);
+            for (int i = node.numberOfChildren() - 1; i >= 0; i--) {
+                stack.push(node.childAt(i));
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Check if the child of a node is in an expression, where a number can replace a variable
+     */
+    private static boolean isExpression(AbstractSyntaxTree parent, int index) {
+        return parent.getLabel().isTerminal()
+                || (is(parent, "<Assign>") && index == 1)
+                || (is(parent, "<For>") && index >= 1 && index <= 3);
+    }
+
+    private static boolean is(AbstractSyntaxTree node, String nonTerminal) {
+        return node.getLabel().isNonTerminal() && nonTerminal.equals(node.getLabel().getValue());
+    }
+
+    private static boolean isNumber(AbstractSyntaxTree node) {
+        return node.getLabel().getType() == LexicalUnit.NUMBER;
+    }
+
+    private static int value(AbstractSyntaxTree node) {
+        return (int) node.getLabel().getValue();
+    }
+
+    private static int id(AbstractSyntaxTree variable) {
+        return ((Identifier) variable.getLabel().getValue()).getId();
+    }
+}
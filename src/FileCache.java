@@ -0,0 +1,316 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Cache on disk of files named after the SHA-256 of their key, shared by the compilers
+ * using the same directory.
+ * <br>
+ * An entry is written in a temporary file then moved atomically, so that another compiler
+ * never reads a partial entry. An entry is touched when it is used, and when the entries
+ * take more than the maximum size, the least recently used ones are deleted. The temporary files
+ * left for more than an hour, by a compiler which was stopped, are deleted too. The numbers
+ * of hits, misses and evictions are added under a lock to the ones kept in the directory.
+ */
+abstract class FileCache {
+    private static final String STATISTICS = "statistics.properties";
+    /**
+     * Age after which a temporary file is left by a compiler which was stopped, in milliseconds
+     */
+    private static final long STALE_TEMPORARY = 60L * 60 * 1000;
+
+    /**
+     * Content of an entry, written in a file
+     */
+    interface Content {
+        void writeTo(Path file) throws IOException;
+    }
+
+    private final Path directory;
+    /**
+     * Name of the cache in the statistics
+     */
+    private final String name;
+    /**
+     * Extension of the files of the entries, the caches of different extensions can share a directory
+     */
+    private final String extension;
+    /**
+     * Maximum total size of the entries, in bytes
+     */
+    private final long maxSize;
+    /**
+     * Classes of the compiler giving the version, only their files are read and not the whole
+     * classpath. A new class must be added here so that a change in it invalidates the entries.
+     */
+    private static final String[] CLASSES = {
+            "AbstractFlatTree", "AbstractSyntaxTree", "ArenaTree", "AstCache", "AstParser",
+            "AstParser$SyntaxError", "ChannelSink", "Compiler", "ConstantFolder", "ControlFlowGraph",
+            "DeadCodeEliminator", "FileCache", "FileCache$Content", "FileSink", "FlatTree",
+            "FlatTree$Cursor", "FlatTreeFile", "FlatTreeFile$MappedTree", "IR", "IR$Block",
+            "IR$Constant", "IR$Function", "IR$Instruction", "IR$Opcode", "IR$Type", "IR$Undefined",
+            "IR$Value", "Identifier", "IdentifierTable", "IncrementalLexer", "IncrementalLexer$IntList",
+            "IrPrinter", "LexerTokenStream", "LexicalAnalyzer", "LexicalAnalyzer$ZZ_CMAP_FULL",
+            "LexicalUnit", "ListTokenStream", "LoopInvariantMover", "Main", "MappedSourceReader",
+            "MemorySink", "NodeKind", "OffHeapRecords", "OffHeapTokenBuffer", "OffHeapTree",
+            "OutputCache", "OutputSink", "ParallelLexer", "ParallelLexer$Chunk", "ParseTree", "Parser",
+            "SsaBuilder", "StdoutSink", "Symbol", "TableParser", "TableParser$NonTerminal",
+            "TableParser$Rule", "ThreadedTokenStream", "TokenBuffer", "TokenBufferStream", "TokenStream",
+            "TreeExport", "TreeExport$Export", "TreeExport$Text"
+    };
+    /**
+     * Version of the compiler, computed once
+     */
+    private static byte[] version;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param directory directory of the cache, created if needed
+     * @param name name of the cache in the statistics
+     * @param extension extension of the files of the entries
+     * @param maxSize maximum total size of the entries, in bytes
+     */
+    FileCache(Path directory, String name, String extension, long maxSize) throws IOException {
+        this.directory = directory;
+        this.name = name;
+        this.extension = extension;
+        this.maxSize = maxSize;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Mark an entry as used
+     *
+     * @param file the file of the entry
+     * @return false if the entry doesn't exist (anymore)
+     */
+    boolean touch(Path file) throws IOException {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false; // Evicted by another compiler
+        }
+    }
+
+    /**
+     * Count a lookup in the statistics
+     *
+     * @param hit true if the entry was found
+     */
+    void count(boolean hit) {
+        if (hit) {
+            hits++;
+        }
+        else {
+            misses++;
+        }
+    }
+
+    /**
+     * Put an entry in the cache, then evict the least recently used entries if the cache is too big.
+     *
+     * @param file the file of the entry
+     * @param content the content of the entry
+     */
+    void store(Path file, Content content) throws IOException {
+        Path temporary = Files.createTempFile(directory, name, ".tmp");
+        try {
+            content.writeTo(temporary);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        evict();
+    }
+
+    /**
+     * Delete the temporary files of the stopped compilers, then the least recently used entries
+     * until the total size is at most the maximum size
+     */
+    private void evict() throws IOException {
+        long stale = System.currentTimeMillis() - STALE_TEMPORARY;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, name + "*.tmp")) {
+            for (Path file : stream) {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < stale) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Moved or deleted by another compiler
+                }
+            }
+        }
+
+        List<Path> files = new ArrayList<>();
+        List<FileTime> times = new ArrayList<>();
+        List<Long> sizes = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + extension)) {
+            for (Path file : stream) {
+                FileTime time;
+                long size;
+                try {
+                    time = Files.getLastModifiedTime(file);
+                    size = Files.size(file);
+                } catch (NoSuchFileException e) {
+                    continue; // Evicted by another compiler
+                }
+                files.add(file);
+                times.add(time);
+                sizes.add(size);
+                total += size;
+            }
+        }
+        if (total <= maxSize) {
+            return;
+        }
+
+        List<Integer> order = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(times::get));
+
+        for (int i : order) {
+            if (total <= maxSize) {
+                break;
+            }
+            total -= sizes.get(i);
+            if (Files.deleteIfExists(files.get(i))) {
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * @param key the parts of the key of an entry
+     * @return the file of the entry
+     */
+    Path file(byte[]... key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (byte[] part : key) {
+                // The length separates the parts, so that two different keys never give the same bytes
+                digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(part.length).array());
+                digest.update(part);
+            }
+            byte[] hash = digest.digest();
+            StringBuilder name = new StringBuilder(2 * hash.length + extension.length());
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return directory.resolve(name.append(extension).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 is in every Java platform
+        }
+    }
+
+    /**
+     * @return the SHA-256 of the classes of the compiler
+     */
+    static synchronized byte[] version() throws IOException {
+        if (version != null)
+            return version;
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String name : CLASSES) {
+                try (InputStream input = FileCache.class.getResourceAsStream(name + ".class")) {
+                    if (input == null) {
+                        throw new IOException("The class " + name + " of the compiler can't be found");
+                    }
+                    digest.update(name.getBytes(StandardCharsets.UTF_8));
+                    digest.update(input.readAllBytes());
+                }
+            }
+            version = digest.digest();
+            return version;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("The version of the compiler can't be computed", e);
+        }
+    }
+
+    /**
+     * Evict the entries over the maximum size and add the statistics to the ones of the directory
+     */
+    void close() throws IOException {
+        evict();
+
+        try (FileChannel channel = FileChannel.open(directory.resolve(STATISTICS),
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            FileLock lock = channel.lock();
+            try {
+                ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+                while (content.hasRemaining() && channel.read(content) >= 0) {
+                }
+                Properties statistics = new Properties();
+                long[] saved = new long[3];
+                try {
+                    statistics.load(new ByteArrayInputStream(content.array(), 0, content.position()));
+                    saved[0] = Long.parseLong(statistics.getProperty(name + ".hits", "0"));
+                    saved[1] = Long.parseLong(statistics.getProperty(name + ".misses", "0"));
+                    saved[2] = Long.parseLong(statistics.getProperty(name + ".evictions", "0"));
+                } catch (IllegalArgumentException e) {
+                    statistics.clear(); // Damaged file, the statistics start again
+                    saved = new long[3];
+                }
+                hits += saved[0];
+                misses += saved[1];
+                evictions += saved[2];
+                statistics.setProperty(name + ".hits", Long.toString(hits));
+                statistics.setProperty(name + ".misses", Long.toString(misses));
+                statistics.setProperty(name + ".evictions", Long.toString(evictions));
+
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                statistics.store(output, "Statistics of the caches");
+                channel.truncate(0);
+                channel.position(0);
+                Channels.newOutputStream(channel).write(output.toByteArray());
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * @return the statistics of the cache, to be displayed, read after close()
+     */
+    String statistics() throws IOException {
+        long size = 0;
+        int count = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + extension)) {
+            for (Path file : stream) {
+                try {
+                    size += Files.size(file);
+                    count++;
+                } catch (NoSuchFileException e) {
+                    // Evicted by another compiler
+                }
+            }
+        }
+        return name + " cache: " + hits + " hits, " + misses + " misses, " + evictions + " evictions, "
+                + count + " entries in " + size + " bytes";
+    }
+}
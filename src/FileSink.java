@@ -0,0 +1,36 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Sink writing the code in a file through a BufferedWriter.
+ * The file is emptied and opened only once when the sink is created.
+ */
+public class FileSink implements OutputSink {
+    /**
+     * Writer on the output file
+     */
+    private final BufferedWriter writer;
+
+    public FileSink(Path outputFile) throws IOException {
+        writer = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void write(String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
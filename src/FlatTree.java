@@ -0,0 +1,145 @@
+/**
+ * Abstract syntax tree stored as a table of nodes instead of objects.
+ * <br>
+ * A node is an index in the table. It has a kind, a value (the number of a CONSTANT or the id
+ * of the identifier of a VARIABLE), the indexes of its first child and of its next sibling,
+ * and the position in the source of its first terminal. The children are in the order of the
+ * construction of the language:
+ * <ul>
+ *     <li>PROGRAM: CODE</li>
+ *     <li>CODE: the instructions</li>
+ *     <li>ASSIGN: VARIABLE, expression</li>
+ *     <li>IF: condition, CODE, CODE of the else if there is one</li>
+ *     <li>WHILE: condition, CODE</li>
+ *     <li>FOR: VARIABLE, from, by, to, CODE</li>
+ *     <li>PRINT, READ: VARIABLE</li>
+ *     <li>the operators: the operands</li>
+ * </ul>
+ */
+public interface FlatTree {
+    /**
+     * Index of a missing node (no child or no sibling)
+     */
+    int NONE = -1;
+
+    /**
+     * @return the index of the PROGRAM node
+     */
+    int root();
+
+    /**
+     * @return the number of nodes
+     */
+    int size();
+
+    NodeKind kind(int node);
+
+    /**
+     * @return the number of a CONSTANT or the id of the identifier of a VARIABLE
+     */
+    int value(int node);
+
+    /**
+     * @return the identifier of a VARIABLE
+     */
+    Identifier identifier(int node);
+
+    int firstChild(int node);
+
+    int nextSibling(int node);
+
+    int line(int node);
+
+    int column(int node);
+
+    /**
+     * @return a cursor on the root of the tree
+     */
+    default Cursor cursor() {
+        return new Cursor(this);
+    }
+
+    /**
+     * Position in a FlatTree which can move to the first child, to the next sibling and
+     * back to the parent. The parents are kept on a stack, so no parent is stored in the tree.
+     */
+    final class Cursor {
+        private final FlatTree tree;
+        private int node;
+        private int[] parents;
+        private int depth;
+
+        Cursor(FlatTree tree) {
+            this.tree = tree;
+            this.node = tree.root();
+            this.parents = new int[16];
+            this.depth = 0;
+        }
+
+        public int node() {
+            return node;
+        }
+
+        public NodeKind kind() {
+            return tree.kind(node);
+        }
+
+        public int value() {
+            return tree.value(node);
+        }
+
+        public Identifier identifier() {
+            return tree.identifier(node);
+        }
+
+        public int line() {
+            return tree.line(node);
+        }
+
+        public int column() {
+            return tree.column(node);
+        }
+
+        /**
+         * Move to the first child of the node
+         * @return false if it has no child, the cursor doesn't move then
+         */
+        public boolean firstChild() {
+            int child = tree.firstChild(node);
+            if (child == NONE) {
+                return false;
+            }
+            if (depth == parents.length) {
+                parents = java.util.Arrays.copyOf(parents, depth * 2);
+            }
+            parents[depth++] = node;
+            node = child;
+            return true;
+        }
+
+        /**
+         * Move to the next sibling of the node
+         * @return false if it is the last child, the cursor doesn't move then
+         */
+        public boolean nextSibling() {
+            int sibling = tree.nextSibling(node);
+            if (sibling == NONE) {
+                return false;
+            }
+            node = sibling;
+            return true;
+        }
+
+        /**
+         * Move back to the parent of the node
+         * @return false if the node is the root, the cursor doesn't move then
+         */
+        public boolean parent() {
+            if (depth == 0) {
+                return false;
+            }
+            node = parents[--depth];
+            return true;
+        }
+    }
+}
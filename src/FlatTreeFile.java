@@ -0,0 +1,206 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Binary file format of a FlatTree.
+ * <br>
+ * All the ints are big-endian:
+ * <pre>
+ * magic "ALGT", version, number of identifiers, number of nodes
+ * for each identifier id: length of the name in bytes (-1 if the id isn't used), name in UTF-8
+ * for each node: kind, value, first child, next sibling, line, column
+ * </pre>
+ * The kinds are the ordinals of NodeKind, so VERSION must change with NodeKind or the layout.
+ * A file is read by mapping it in memory: the nodes are read directly from the mapping.
+ */
+final class FlatTreeFile {
+    private static final int MAGIC = 0x414C4754; // "ALGT"
+    static final int VERSION = 1;
+    /**
+     * Number of ints of a node
+     */
+    private static final int NODE_INTS = 6;
+
+    private FlatTreeFile() {
+    }
+
+    /**
+     * Write the tree in a file, replacing it if it exists
+     *
+     * @param tree the tree to write
+     * @param file the destination
+     */
+    static void write(FlatTree tree, Path file) throws IOException {
+        Identifier[] identifiers = new Identifier[0];
+        for (int node = 0; node < tree.size(); node++) {
+            if (tree.kind(node) == NodeKind.VARIABLE) {
+                Identifier identifier = tree.identifier(node);
+                if (identifier.getId() >= identifiers.length) {
+                    identifiers = Arrays.copyOf(identifiers, Math.max(2 * identifiers.length, identifier.getId() + 1));
+                }
+                identifiers[identifier.getId()] = identifier;
+            }
+        }
+        int count = identifiers.length;
+        while (count > 0 && identifiers[count - 1] == null) {
+            count--;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(count);
+            buffer.putInt(tree.size());
+            for (int id = 0; id < count; id++) {
+                byte[] name = identifiers[id] == null ? null : identifiers[id].getName().getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < Integer.BYTES + (name == null ? 0 : name.length)) {
+                    flush(channel, buffer);
+                }
+                if (name == null) {
+                    buffer.putInt(-1);
+                }
+                else if (name.length + Integer.BYTES > buffer.capacity()) {
+                    buffer.putInt(name.length);
+                    flush(channel, buffer);
+                    channel.write(ByteBuffer.wrap(name));
+                }
+                else {
+                    buffer.putInt(name.length);
+                    buffer.put(name);
+                }
+            }
+            for (int node = 0; node < tree.size(); node++) {
+                if (buffer.remaining() < NODE_INTS * Integer.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putInt(tree.kind(node).ordinal());
+                buffer.putInt(tree.value(node));
+                buffer.putInt(tree.firstChild(node));
+                buffer.putInt(tree.nextSibling(node));
+                buffer.putInt(tree.line(node));
+                buffer.putInt(tree.column(node));
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Write all the content of the buffer in the channel, then clear it
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Map a file written by write()
+     *
+     * @param file the file
+     * @return the tree read from the mapping, null if the file isn't a tree of this version
+     */
+    static FlatTree map(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            Identifier[] identifiers = new Identifier[buffer.getInt()];
+            int size = buffer.getInt();
+            for (int id = 0; id < identifiers.length; id++) {
+                int length = buffer.getInt();
+                if (length >= 0) {
+                    byte[] name = new byte[length];
+                    buffer.get(name);
+                    identifiers[id] = new Identifier(id, new String(name, StandardCharsets.UTF_8));
+                }
+            }
+            if (buffer.remaining() != (long) size * NODE_INTS * Integer.BYTES) {
+                return null;
+            }
+            return new MappedTree(buffer.slice(), size, identifiers);
+        } catch (RuntimeException e) {
+            return null; // Truncated or corrupted file
+        }
+    }
+
+    /**
+     * FlatTree reading its nodes in a mapped file
+     */
+    private static final class MappedTree implements FlatTree {
+        private static final NodeKind[] KINDS = NodeKind.values();
+
+        private final ByteBuffer nodes;
+        private final int size;
+        private final Identifier[] identifiers;
+
+        MappedTree(ByteBuffer nodes, int size, Identifier[] identifiers) {
+            this.nodes = nodes;
+            this.size = size;
+            this.identifiers = identifiers;
+        }
+
+        private int get(int node, int field) {
+            return nodes.getInt((node * NODE_INTS + field) * Integer.BYTES);
+        }
+
+        @Override
+        public int root() {
+            return 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public NodeKind kind(int node) {
+            return KINDS[get(node, 0)];
+        }
+
+        @Override
+        public int value(int node) {
+            return get(node, 1);
+        }
+
+        @Override
+        public Identifier identifier(int node) {
+            return identifiers[get(node, 1)];
+        }
+
+        @Override
+        public int firstChild(int node) {
+            return get(node, 2);
+        }
+
+        @Override
+        public int nextSibling(int node) {
+            return get(node, 3);
+        }
+
+        @Override
+        public int line(int node) {
+            return get(node, 4);
+        }
+
+        @Override
+        public int column(int node) {
+            return get(node, 5);
+        }
+    }
+}
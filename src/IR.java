@@ -0,0 +1,252 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-memory intermediate representation of the LLVM IR code of a program.
+ * <br>
+ * A function is a list of basic blocks, a block is a list of typed instructions ending with a
+ * jump or a return. An instruction is also the value it computes, so the operands of an
+ * instruction are the instructions (or the constants) whose values it uses. The unnamed
+ * values are numbered only when the code is printed by the IrPrinter, so the passes can
+ * add and remove instructions freely.
+ */
+public final class IR {
+    private IR() {
+    }
+
+    /**
+     * Type of a value
+     */
+    public enum Type {
+        I1("i1"),
+        I32("i32"),
+        POINTER("i32*"),
+        VOID("void");
+
+        public final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * Operation of an instruction, with its text in LLVM IR for the arithmetic and the comparisons
+     */
+    public enum Opcode {
+        ALLOCA(null),
+        LOAD(null),
+        STORE(null),
+        ADD("add"),
+        SUB("sub"),
+        MUL("mul"),
+        SDIV("sdiv"),
+        AND("and"),
+        OR("or"),
+        EQ("icmp eq"),
+        NE("icmp ne"),
+        SGT("icmp sgt"),
+        SGE("icmp sge"),
+        SLT("icmp slt"),
+        SLE("icmp sle"),
+        READ(null), // Call of @readInt()
+        PRINT(null), // Call of @println(i32)
+        PHI(null), // Value coming from the block the code jumped from
+        BR(null),
+        COND_BR(null),
+        RET(null);
+
+        public final String text;
+
+        Opcode(String text) {
+            this.text = text;
+        }
+
+        /**
+         * @return true if the instruction ends a block
+         */
+        public boolean isTerminator() {
+            return this == BR || this == COND_BR || this == RET;
+        }
+
+        /**
+         * @return true if the instruction is a comparison giving an i1
+         */
+        public boolean isComparison() {
+            return ordinal() >= EQ.ordinal() && ordinal() <= SLE.ordinal();
+        }
+    }
+
+    /**
+     * Value used as an operand
+     */
+    public abstract static class Value {
+        public final Type type;
+
+        Value(Type type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * Constant integer or boolean (0 or 1)
+     */
+    public static final class Constant extends Value {
+        public final int value;
+
+        public Constant(Type type, int value) {
+            super(type);
+            this.value = value;
+        }
+    }
+
+    /**
+     * Value of a variable read before any assignment
+     */
+    public static final class Undefined extends Value {
+        public Undefined(Type type) {
+            super(type);
+        }
+    }
+
+    /**
+     * Instruction of a block, and the value it computes when its type isn't VOID
+     */
+    public static final class Instruction extends Value {
+        public final Opcode opcode;
+        /**
+         * Values used by the instruction, they can be replaced by the passes but not added
+         */
+        public final List<Value> operands;
+        /**
+         * Blocks the instruction can jump to, or for a phi the block each operand comes from
+         */
+        public final List<Block> targets;
+        /**
+         * Name of the value (the variable of an alloca), null if it is numbered
+         */
+        public final String name;
+        /**
+         * Number of the unnamed value, given by the IrPrinter
+         */
+        int number;
+
+        private Instruction(Opcode opcode, Type type, String name, List<Value> operands, List<Block> targets) {
+            super(type);
+            this.opcode = opcode;
+            this.name = name;
+            this.operands = operands;
+            this.targets = targets;
+        }
+
+        /**
+         * Add to a phi the value it takes when the code comes from a block
+         */
+        public void addIncoming(Value value, Block block) {
+            operands.add(value);
+            targets.add(block);
+        }
+    }
+
+    /**
+     * Basic block: a label and instructions executed in order, the last one being a terminator
+     */
+    public static final class Block {
+        public final String label;
+        public final List<Instruction> instructions;
+
+        public Block(String label) {
+            this.label = label;
+            this.instructions = new ArrayList<>();
+        }
+
+        /**
+         * @return the last instruction if it is a terminator, null otherwise
+         */
+        public Instruction terminator() {
+            if (instructions.isEmpty()) {
+                return null;
+            }
+            Instruction last = instructions.get(instructions.size() - 1);
+            return last.opcode.isTerminator() ? last : null;
+        }
+    }
+
+    /**
+     * Function: its blocks in the order they are printed, the first one is the entry
+     */
+    public static final class Function {
+        public final String name;
+        public final List<Block> blocks;
+
+        public Function(String name) {
+            this.name = name;
+            this.blocks = new ArrayList<>();
+        }
+    }
+
+    /*
+    Creation of the instructions
+     */
+
+    public static Instruction alloca(String variable) {
+        return new Instruction(Opcode.ALLOCA, Type.POINTER, variable, Collections.emptyList(), Collections.emptyList());
+    }
+
+    public static Instruction load(Value pointer) {
+        return new Instruction(Opcode.LOAD, Type.I32, null, operands(pointer), Collections.emptyList());
+    }
+
+    public static Instruction store(Value value, Value pointer) {
+        return new Instruction(Opcode.STORE, Type.VOID, null, operands(value, pointer), Collections.emptyList());
+    }
+
+    /**
+     * @param opcode an arithmetic, logical or comparison opcode
+     * @param type the type of the operands, a comparison gives an I1
+     */
+    public static Instruction binary(Opcode opcode, Type type, Value left, Value right) {
+        return new Instruction(opcode, opcode.isComparison() ? Type.I1 : type, null, operands(left, right), Collections.emptyList());
+    }
+
+    /**
+     * @return a phi without incoming value, they are added with addIncoming
+     */
+    public static Instruction phi(Type type) {
+        return new Instruction(Opcode.PHI, type, null, new ArrayList<>(), new ArrayList<>());
+    }
+
+    public static Instruction read() {
+        return new Instruction(Opcode.READ, Type.I32, null, Collections.emptyList(), Collections.emptyList());
+    }
+
+    public static Instruction print(Value value) {
+        return new Instruction(Opcode.PRINT, Type.VOID, null, operands(value), Collections.emptyList());
+    }
+
+    public static Instruction br(Block target) {
+        return new Instruction(Opcode.BR, Type.VOID, null, Collections.emptyList(), targets(target));
+    }
+
+    public static Instruction condBr(Value condition, Block ifTrue, Block ifFalse) {
+        return new Instruction(Opcode.COND_BR, Type.VOID, null, operands(condition), targets(ifTrue, ifFalse));
+    }
+
+    public static Instruction ret(Value value) {
+        return new Instruction(Opcode.RET, Type.VOID, null, operands(value), Collections.emptyList());
+    }
+
+    /*
+    The operands and the targets of an instruction other than a phi are fixed-size lists: they can be replaced, not added
+     */
+
+    private static List<Value> operands(Value... values) {
+        return Arrays.asList(values);
+    }
+
+    private static List<Block> targets(Block... blocks) {
+        return Arrays.asList(blocks);
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Identifier of a variable, created once per distinct name by the IdentifierTable.
+ * The id is dense: the identifiers of a program are numbered 0, 1, 2, ...
+ * so the passes can index arrays with it instead of comparing names.
+ */
+public final class Identifier {
+    private final int id;
+    private final String name;
+
+    Identifier(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * Get the id
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the name
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The name of the identifier, so that it is printed as the variable it represents
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.Arrays;
+
+/**
+ * Table giving to each distinct identifier a dense integer id (0, 1, 2, ...).
+ * The table is created by the lexical analyzer and the same Identifier object is
+ * used for every occurrence of a name in the symbols, the trees and the compiler.
+ * An identifier can be looked up directly from a range of characters so that
+ * only the first occurrence of a name creates a String.
+ */
+class IdentifierTable {
+    /**
+     * Initial number of slots of the hash table, always a power of two
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Hash table of the ids plus one, 0 meaning an empty slot
+     */
+    private int[] slots;
+    /**
+     * Hash of each identifier, indexed by id
+     */
+    private int[] hashes;
+    /**
+     * Each identifier, indexed by id
+     */
+    private Identifier[] identifiers;
+    /**
+     * Number of identifiers in the table
+     */
+    private int size;
+
+    IdentifierTable() {
+        slots = new int[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY / 2];
+        identifiers = new Identifier[INITIAL_CAPACITY / 2];
+        size = 0;
+    }
+
+    /**
+     * Get the id of the identifier made of the characters chars[start..start+length[,
+     * giving it a new id if it is not in the table yet.
+     *
+     * @param chars array containing the identifier
+     * @param start index of the first character of the identifier
+     * @param length number of characters of the identifier
+     * @return the id of the identifier
+     */
+    int intern(char[] chars, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && equals(identifiers[id].getName(), chars, start, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return add(new String(chars, start, length), hash, slot);
+    }
+
+    /**
+     * Get the id of the identifier, giving it a new id if it is not in the table yet.
+     *
+     * @param name the identifier
+     * @return the id of the identifier
+     */
+    int intern(String name) {
+        return intern(name.toCharArray(), 0, name.length());
+    }
+
+    /**
+     * Get an identifier
+     * @param id id of the identifier
+     * @return the identifier
+     */
+    Identifier get(int id) {
+        return identifiers[id];
+    }
+
+    /**
+     * Get the number of distinct identifiers
+     * @return the number of identifiers
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Add a new identifier in the empty slot of the hash table.
+     */
+    private int add(String name, int hash, int slot) {
+        int id = size++;
+        if (id == identifiers.length) {
+            identifiers = Arrays.copyOf(identifiers, identifiers.length * 2);
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        identifiers[id] = new Identifier(id, name);
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+
+        // Keep the table at most half full
+        if (2 * size > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Double the number of slots of the hash table and put back all the ids.
+     */
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Spread the bits of the hash so that the low bits used for the slot depend on all of them.
+     */
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Check if the name is made of the characters chars[start..start+length[
+     */
+    private static boolean equals(String name, char[] chars, int start, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,232 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Lexer keeping the symbols of a source which is edited, for the editors and the watch tools.
+ * <br>
+ * After an edit, the source is only lexed again from a safe restart point before the edit until
+ * the new symbols meet the old ones again. The restart point is the end of the last symbol before
+ * the line of the edit: the symbols are only produced in the YYINITIAL state and no match looks
+ * further than the end of its line, so the analysis from there doesn't depend on what is before.
+ * The analysis stops at the first new symbol after the edit which starts where an old symbol started
+ * (shifted by the edit), since from this point the text and the state are the same as before.
+ * The old symbols after it are kept, with their positions shifted.
+ */
+class IncrementalLexer {
+    /**
+     * Current text of the source
+     */
+    private String text;
+    /**
+     * Table of the identifiers, kept between the analyses so the ids don't change
+     */
+    private final IdentifierTable identifiers;
+    /**
+     * Symbols of the source, ending with END_OF_STREAM
+     */
+    private List<Symbol> symbols;
+    /**
+     * Offset of the first character of each symbol
+     */
+    private int[] starts;
+    /**
+     * Offset after the last character of each symbol
+     */
+    private int[] ends;
+
+    /**
+     * Lex the whole source
+     *
+     * @param text the source
+     * @throws PatternSyntaxException if there is a lexical error in the source
+     */
+    IncrementalLexer(String text) throws PatternSyntaxException {
+        this.text = text;
+        this.identifiers = new IdentifierTable();
+        this.symbols = new ArrayList<>();
+        this.starts = new int[0];
+        this.ends = new int[0];
+
+        List<Symbol> fresh = new ArrayList<>();
+        IntList freshStarts = new IntList();
+        IntList freshEnds = new IntList();
+        lex(text, 0, 0, 0, fresh, freshStarts, freshEnds, Integer.MAX_VALUE, 0, 0);
+        this.symbols = fresh;
+        this.starts = freshStarts.toArray();
+        this.ends = freshEnds.toArray();
+    }
+
+    /**
+     * Get the current text of the source
+     * @return the text
+     */
+    String getText() {
+        return text;
+    }
+
+    /**
+     * Get the symbols of the current text
+     * @return the symbols, ending with END_OF_STREAM
+     */
+    List<Symbol> getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Get the table of the identifiers of the source
+     * @return the identifier table
+     */
+    IdentifierTable getIdentifiers() {
+        return identifiers;
+    }
+
+    /**
+     * Apply an edit to the source and update the symbols.
+     * If there is a lexical error in the new text, the exception is thrown and nothing changes.
+     *
+     * @param offset offset of the first removed character
+     * @param removed number of characters removed
+     * @param inserted text inserted at the offset
+     * @return the symbols of the new text
+     * @throws PatternSyntaxException if there is a lexical error in the new text
+     */
+    List<Symbol> edit(int offset, int removed, String inserted) throws PatternSyntaxException {
+        String newText = text.substring(0, offset) + inserted + text.substring(offset + removed);
+        int delta = inserted.length() - removed;
+
+        // Restart after the last symbol ending before the line of the edit
+        int lineStart = Math.max(text.lastIndexOf('\n', offset - 1), text.lastIndexOf('\r', offset - 1)) + 1;
+        int kept = 0;
+        while (kept < symbols.size() && ends[kept] < lineStart && symbols.get(kept).getType() != LexicalUnit.END_OF_STREAM) {
+            kept++;
+        }
+        int restart = 0;
+        int line = 0;
+        int column = 0;
+        if (kept > 0) {
+            Symbol last = symbols.get(kept - 1);
+            restart = ends[kept - 1];
+            line = last.getLine() - 1;
+            column = last.getColumn() + ends[kept - 1] - starts[kept - 1];
+        }
+
+        // Lex until a new symbol after the edit starts where an old one started
+        List<Symbol> fresh = new ArrayList<>(symbols.subList(0, kept));
+        IntList freshStarts = new IntList(starts, kept);
+        IntList freshEnds = new IntList(ends, kept);
+        int resync = lex(newText, restart, line, column, fresh, freshStarts, freshEnds,
+                offset + inserted.length(), delta, kept);
+
+        // Keep the old symbols from the resynchronisation point, shifted
+        if (resync >= 0) {
+            Symbol old = symbols.get(resync);
+            Symbol now = fresh.remove(fresh.size() - 1);
+            freshStarts.removeLast();
+            freshEnds.removeLast();
+            int lineDelta = now.getLine() - old.getLine();
+            int columnDelta = now.getColumn() - old.getColumn();
+            for (int i = resync; i < symbols.size(); i++) {
+                Symbol symbol = symbols.get(i);
+                if (lineDelta != 0 || (columnDelta != 0 && symbol.getLine() == old.getLine())) {
+                    int shiftedColumn = symbol.getLine() == old.getLine() ? symbol.getColumn() + columnDelta : symbol.getColumn();
+                    symbol = new Symbol(symbol.getType(), symbol.getLine() - 1 + lineDelta, shiftedColumn, symbol.getValue());
+                }
+                fresh.add(symbol);
+                freshStarts.add(starts[i] + delta);
+                freshEnds.add(ends[i] + delta);
+            }
+        }
+
+        text = newText;
+        symbols = fresh;
+        starts = freshStarts.toArray();
+        ends = freshEnds.toArray();
+        return symbols;
+    }
+
+    /**
+     * Lex the text from a position, adding the symbols to the lists, until the end of the text or until
+     * a symbol starting after the edit starts where an old symbol started.
+     *
+     * @param text the text to lex
+     * @param offset offset where the analysis starts
+     * @param line line at the offset
+     * @param column column at the offset
+     * @param editEnd offset after the edit in the text, the symbols before can't be compared to the old ones
+     * @param delta difference of length between the text and the old text
+     * @param first index of the first old symbol which can be met again
+     * @return the index of the old symbol met again, -1 if the analysis went to the end of the text
+     */
+    private int lex(String text, int offset, int line, int column, List<Symbol> fresh,
+                    IntList freshStarts, IntList freshEnds, int editEnd, int delta, int first) {
+        StringReader reader = new StringReader(text);
+        LexicalAnalyzer analyzer = new LexicalAnalyzer(reader);
+        analyzer.useIdentifiers(identifiers);
+        analyzer.startAt(offset, line, column, LexicalAnalyzer.YYINITIAL);
+        try {
+            reader.skip(offset);
+
+            int old = first;
+            Symbol symbol;
+            do {
+                symbol = analyzer.nextToken();
+                int start = analyzer.offset();
+                fresh.add(symbol);
+                freshStarts.add(start);
+                freshEnds.add(start + analyzer.yylength());
+
+                if (start >= editEnd) {
+                    int target = start - delta;
+                    while (old < starts.length && starts[old] < target) {
+                        old++;
+                    }
+                    if (old < starts.length && starts[old] == target) {
+                        return old;
+                    }
+                }
+            } while (symbol.getType() != LexicalUnit.END_OF_STREAM);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Can't happen when reading a String
+        }
+        return -1;
+    }
+
+    /**
+     * Growable array of ints
+     */
+    private static class IntList {
+        private int[] values;
+        private int size;
+
+        IntList() {
+            this(new int[16], 0);
+        }
+
+        /**
+         * List containing the first values of an array
+         */
+        IntList(int[] values, int size) {
+            this.values = Arrays.copyOf(values, Math.max(16, size * 2));
+            this.size = size;
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void removeLast() {
+            size--;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
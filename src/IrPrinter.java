@@ -0,0 +1,182 @@
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Printer of the IR of a program as LLVM IR code.
+ * The unnamed values are numbered in the order they are printed, as LLVM requires it,
+ * and the whole code is written in the sink in one pass.
+ */
+final class IrPrinter {
+    /**
+     * Functions to print and read an integer, used by the main function
+     */
+    private static final String RUNTIME = "@.strP = private unnamed_addr constant [4 x i8] c\"%d\\0A\\00\", align 1\n" +
+            "\n" +
+            "; Function Attrs: nounwind uwtable\n" +
+            "define void @println(i32 %x) #0 {\n" +
+            "\t%1 = alloca i32, align 4\n" +
+            "\tstore i32 %x, i32* %1, align 4\n" +
+            "\t%2 = load i32, i32* %1, align 4\n" +
+            "\t%3 = call i32 (i8*, ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]* @.strP, i32 0, i32 0), i32 %2)\n" +
+            "\tret void\n" +
+            "}\n" +
+            "\n" +
+            "declare i32 @printf(i8*, ...) #1\n" +
+            "\n" +
+            "declare i32 @getchar()\n" +
+            "\n" +
+            "define i32 @readInt() {\n" +
+            "entry:\n" +
+            "\t%res = alloca i32\n" +
+            "\tstore i32 0, i32* %res\n" +
+            "\n" +
+            "\t%isNegative = alloca i1\n" +
+            "\t%number = alloca i32\n" +
+            "\t%0 = call i32 @getchar()\n" +
+            "\t\n" +
+            "\t%1 = icmp eq i32 %0, 45\n" +
+            "\tstore i1 %1, i1* %isNegative\n" +
+            "\tbr i1 %1, label %loop, label %firstIteration\n" +
+            "firstIteration:\n" +
+            "\t%2 = sub i32 %0, 48\n" +
+            "\tstore i32 %2, i32* %number\n" +
+            "\n" +
+            "\t%3 = icmp sge i32 %2, 0\n" +
+            "\t%4 = icmp sle i32 %2, 9\n" +
+            "\t%5 = and i1 %3, %4\n" +
+            "\tbr i1 %5, label %continue, label %exit\n" +
+            "loop:\n" +
+            "\t%6 = call i32 @getchar()\n" +
+            "\t%7 = sub i32 %6, 48\n" +
+            "\tstore i32 %7, i32* %number\n" +
+            "\n" +
+            "\t%8 = icmp sge i32 %7, 0\n" +
+            "\t%9 = icmp sle i32 %7, 9\n" +
+            "\t%10 = and i1 %8, %9\n" +
+            "\tbr i1 %10, label %continue, label %exit\n" +
+            "continue:\n" +
+            "\t%11 = load i32, i32* %res\n" +
+            "\t%12 = mul i32 %11, 10\n" +
+            "\t%13 = load i32, i32* %number\n" +
+            "\t%14 = add i32 %12, %13 \n" +
+            "\tstore i32 %14, i32* %res\n" +
+            "\n" +
+            "\tbr label %loop\n" +
+            "exit:\n" +
+            "\n" +
+            "\t%15 = load i1, i1* %isNegative\n" +
+            "\tbr i1 %15, label %ifNegative, label %endifNegative\n" +
+            "\n" +
+            "ifNegative:\n" +
+            "\t%16 = load i32, i32* %res\n" +
+            "\t%17 = mul i32 %16, -1\n" +
+            "\tstore i32 %17, i32* %res\n" +
+            "\n" +
+            "\tbr label %endifNegative\n" +
+            "endifNegative:\n" +
+            "\t%18 = load i32, i32* %res\n" +
+            "\tret i32 %18\n" +
+            "}\n" +
+            "\n";
+
+    private final OutputSink output;
+
+    private IrPrinter(OutputSink output) {
+        this.output = output;
+    }
+
+    /**
+     * Print the functions of the runtime and the main function of a program
+     *
+     * @param main the main function of the program
+     * @param output the sink receiving the code
+     */
+    static void print(IR.Function main, OutputSink output) throws IOException {
+        new IrPrinter(output).printProgram(main);
+    }
+
+    private void printProgram(IR.Function main) throws IOException {
+        output.write(RUNTIME);
+        number(main);
+
+        output.write("define i32 @" + main.name + "() {");
+        List<IR.Block> blocks = main.blocks;
+        for (int i = 0; i < blocks.size(); i++) {
+            IR.Block block = blocks.get(i);
+            if (i > 0) {
+                output.write("");
+            }
+            output.write(block.label + ":");
+            for (IR.Instruction instruction : block.instructions) {
+                output.write(text(instruction));
+            }
+        }
+        output.write("}");
+    }
+
+    /**
+     * Number the unnamed values of a function in the order of the blocks
+     */
+    private static void number(IR.Function function) {
+        int number = 0;
+        for (IR.Block block : function.blocks) {
+            for (IR.Instruction instruction : block.instructions) {
+                if (instruction.type != IR.Type.VOID && instruction.name == null) {
+                    instruction.number = number++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the line of an instruction
+     */
+    private static String text(IR.Instruction instruction) {
+        List<IR.Value> operands = instruction.operands;
+        switch (instruction.opcode) {
+            case ALLOCA:
+                return value(instruction) + " = alloca i32";
+            case LOAD:
+                return value(instruction) + " = load i32, i32* " + value(operands.get(0));
+            case STORE:
+                return "store i32 " + value(operands.get(0)) + ", i32* " + value(operands.get(1));
+            case READ:
+                return value(instruction) + " = call i32 @readInt()";
+            case PRINT:
+                return "call void @println(i32 " + value(operands.get(0)) + ")";
+            case BR:
+                return "br label %" + instruction.targets.get(0).label;
+            case COND_BR:
+                return "br i1 " + value(operands.get(0)) + ", label %" + instruction.targets.get(0).label
+                        + ", label %" + instruction.targets.get(1).label;
+            case PHI:
+                StringBuilder phi = new StringBuilder(value(instruction)).append(" = phi ").append(instruction.type.text);
+                for (int i = 0; i < operands.size(); i++) {
+                    phi.append(i == 0 ? " [ " : ", [ ").append(value(operands.get(i)))
+                            .append(", %").append(instruction.targets.get(i).label).append(" ]");
+                }
+                return phi.toString();
+            case RET:
+                return "ret i32 " + value(operands.get(0));
+            default:
+                // The operands of a comparison are integers
+                IR.Type type = instruction.opcode.isComparison() ? IR.Type.I32 : instruction.type;
+                return value(instruction) + " = " + instruction.opcode.text + " " + type.text + " "
+                        + value(operands.get(0)) + ", " + value(operands.get(1));
+        }
+    }
+
+    /**
+     * @return a value as an operand
+     */
+    private static String value(IR.Value value) {
+        if (value instanceof IR.Constant) {
+            return String.valueOf(((IR.Constant) value).value);
+        }
+        if (value instanceof IR.Undefined) {
+            return "undef";
+        }
+        IR.Instruction instruction = (IR.Instruction) value;
+        return "%" + (instruction.name != null ? instruction.name : String.valueOf(instruction.number));
+    }
+}
@@ -0,0 +1,84 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Stream reading the symbols from the lexical analyzer only when the parser needs them.
+ * The symbols looked at but not yet consumed are kept in a small ring buffer,
+ * the consumed ones are forgotten so the memory used doesn't depend on the size of the input.
+ */
+class LexerTokenStream implements TokenStream {
+    /**
+     * Lexical analyzer producing the symbols
+     */
+    private final LexicalAnalyzer analyzer;
+    /**
+     * Ring buffer of the symbols looked at but not consumed
+     */
+    private final Symbol[] buffer;
+    /**
+     * Index of the next symbol in the buffer
+     */
+    private int head;
+    /**
+     * Number of symbols in the buffer
+     */
+    private int size;
+    /**
+     * END_OF_STREAM symbol once it has been produced by the analyzer
+     */
+    private Symbol end;
+
+    LexerTokenStream(LexicalAnalyzer analyzer) {
+        this(analyzer, 1);
+    }
+
+    /**
+     * @param analyzer the lexical analyzer producing the symbols
+     * @param lookahead maximal number of symbols which can be looked at before being consumed
+     */
+    LexerTokenStream(LexicalAnalyzer analyzer, int lookahead) {
+        this.analyzer = analyzer;
+        this.buffer = new Symbol[lookahead];
+        this.head = 0;
+        this.size = 0;
+    }
+
+    @Override
+    public Symbol peek(int k) {
+        if (k >= buffer.length) {
+            throw new IllegalArgumentException("Look-ahead of " + (k + 1) + " symbols but the buffer only holds " + buffer.length);
+        }
+        while (size <= k) {
+            buffer[(head + size) % buffer.length] = read();
+            size++;
+        }
+        return buffer[(head + k) % buffer.length];
+    }
+
+    @Override
+    public Symbol next() {
+        Symbol symbol = peek(0);
+        buffer[head] = null;
+        head = (head + 1) % buffer.length;
+        size--;
+        return symbol;
+    }
+
+    /**
+     * Read the next symbol from the analyzer, or the END_OF_STREAM symbol again if the input is exhausted
+     */
+    private Symbol read() {
+        if (end != null) {
+            return end;
+        }
+        try {
+            Symbol symbol = analyzer.nextToken();
+            if (symbol.getType() == LexicalUnit.END_OF_STREAM) {
+                end = symbol;
+            }
+            return symbol;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
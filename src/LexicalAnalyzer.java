@@ -42,9 +42,23 @@ class LexicalAnalyzer {
     "\1\42\1\3\1\44\1\3\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uff95\0";
 
   /** 
-   * Translates characters to character classes
+   * Number of characters translated by ZZ_CMAP_ASCII
+   */
+  private static final int ZZ_CMAP_ASCII_SIZE = 0x80;
+
+  /** 
+   * Translates ASCII characters to character classes.
+   * The language only uses ASCII, so the table of all the characters
+   * (ZZ_CMAP_FULL) is only unpacked if another character is met.
+   */
+  private static final char [] ZZ_CMAP_ASCII = zzUnpackCMap(ZZ_CMAP_PACKED, ZZ_CMAP_ASCII_SIZE);
+
+  /** 
+   * Translates all characters to character classes, unpacked when the class is first used
    */
-  private static final char [] ZZ_CMAP = zzUnpackCMap(ZZ_CMAP_PACKED);
+  private static final class ZZ_CMAP_FULL {
+    static final char [] MAP = zzUnpackCMap(ZZ_CMAP_PACKED, 0x110000);
+  }
 
   /** 
    * Translates DFA states to action switch labels.
@@ -298,6 +312,163 @@ class LexicalAnalyzer {
    */
   private int zzFinalHighSurrogate = 0;
 
+  /* user code: */
+    /**
+     * Buffer filled by the actions when the analyzer is used through fill(),
+     * null when the actions return the symbols.
+     */
+    private TokenBuffer tokens;
+
+    /**
+     * Table of the identifiers of all the VARNAME tokens
+     */
+    private IdentifierTable identifiers = new IdentifierTable();
+
+    /**
+     * Get the table of the identifiers met so far
+     * @return the identifier table
+     */
+    IdentifierTable getIdentifiers() {
+        return identifiers;
+    }
+
+    /**
+     * Use an existing identifier table, so that the identifiers get the same ids
+     * as in a previous analysis. Must be called before the first token.
+     *
+     * @param identifiers the identifier table
+     */
+    void useIdentifiers(IdentifierTable identifiers) {
+        this.identifiers = identifiers;
+    }
+
+    /**
+     * Get the offset of the last matched token from the beginning of the input
+     * @return the offset in characters
+     */
+    int offset() {
+        return yychar;
+    }
+
+    /**
+     * Start the analysis in the given lexical state with the given line number,
+     * when the input is a part of a bigger source beginning at that line.
+     *
+     * @param line line of the first character of the input (starting at 0)
+     * @param state lexical state at the beginning of the input (YYINITIAL or LONG_COMMENT)
+     */
+    void startAt(int line, int state) {
+        startAt(0, line, 0, state);
+    }
+
+    /**
+     * Start the analysis in the given lexical state at the given position,
+     * when the input is the end of a bigger source beginning at that position.
+     *
+     * @param offset offset of the first character of the input in the source
+     * @param line line of the first character of the input (starting at 0)
+     * @param column column of the first character of the input
+     * @param state lexical state at the beginning of the input (YYINITIAL or LONG_COMMENT)
+     */
+    void startAt(int offset, int line, int column, int state) {
+        yychar = offset;
+        yyline = line;
+        yycolumn = column;
+        yybegin(state);
+    }
+
+    /**
+     * Lex all the remaining input directly in a TokenBuffer, without creating a Symbol
+     * for each token. The END_OF_STREAM token is the last token added to the buffer.
+     *
+     * @param buffer the buffer receiving the tokens
+     */
+    void fill(TokenBuffer buffer) throws java.io.IOException, PatternSyntaxException {
+        if (buffer.getIdentifiers() != identifiers) {
+            throw new IllegalArgumentException("The buffer must use the identifier table of the analyzer");
+        }
+        tokens = buffer;
+        try {
+            do {
+                nextToken();
+            } while (buffer.unitAt(buffer.size() - 1) != LexicalUnit.END_OF_STREAM);
+        } finally {
+            tokens = null;
+        }
+    }
+
+    /**
+     * Token whose value is its text
+     */
+    private Symbol symbol(LexicalUnit unit) {
+        if (tokens != null) {
+            tokens.add(unit, yyline, yycolumn, 0);
+            return null;
+        }
+        return new Symbol(unit, yyline, yycolumn, yytext());
+    }
+
+    /**
+     * NUMBER token, whose value is the integer literal
+     */
+    private Symbol number() {
+        int value = literal();
+        if (tokens != null) {
+            tokens.add(LexicalUnit.NUMBER, yyline, yycolumn, value);
+            return null;
+        }
+        return new Symbol(LexicalUnit.NUMBER, yyline, yycolumn, value);
+    }
+
+    /**
+     * Decode the matched integer literal directly from the buffer, without creating a String.
+     * The value is accumulated negatively so that -2147483648 can be read.
+     *
+     * @return the value of the literal
+     * @throws PatternSyntaxException if the literal doesn't fit in 32 bits
+     */
+    private int literal() {
+        int i = zzStartRead;
+        boolean negative = zzBuffer[i] == '-';
+        if (negative) {
+            i++;
+        }
+        int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int value = 0;
+        for (; i < zzMarkedPos; i++) {
+            int digit = zzBuffer[i] - '0';
+            if (value < (limit + digit) / 10) {
+                throw new PatternSyntaxException("Integer literal out of range at line " + (yyline + 1)
+                        + ", column " + yycolumn, yytext(), yyline);
+            }
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * VARNAME token, whose value is the Identifier of the variable
+     */
+    private Symbol identifier() {
+        int id = identifiers.intern(zzBuffer, zzStartRead, zzMarkedPos - zzStartRead);
+        if (tokens != null) {
+            tokens.add(LexicalUnit.VARNAME, yyline, yycolumn, id);
+            return null;
+        }
+        return new Symbol(LexicalUnit.VARNAME, yyline, yycolumn, identifiers.get(id));
+    }
+
+    /**
+     * END_OF_STREAM token, without value
+     */
+    private Symbol endOfStream() {
+        if (tokens != null) {
+            tokens.add(LexicalUnit.END_OF_STREAM, yyline, yycolumn, 0);
+            return null;
+        }
+        return new Symbol(LexicalUnit.END_OF_STREAM, yyline, yycolumn);
+    }
+
 
   /**
    * Creates a new scanner
@@ -313,16 +484,17 @@ class LexicalAnalyzer {
    * Unpacks the compressed character translation table.
    *
    * @param packed   the packed character translation table
+   * @param size     the number of characters to unpack
    * @return         the unpacked character translation table
    */
-  private static char [] zzUnpackCMap(String packed) {
-    char [] map = new char[0x110000];
+  private static char [] zzUnpackCMap(String packed, int size) {
+    char [] map = new char[size];
     int i = 0;  /* index in packed string  */
     int j = 0;  /* index in unpacked array */
-    while (i < 142) {
+    while (j < size) {
       int  count = packed.charAt(i++);
       char value = packed.charAt(i++);
-      do map[j++] = value; while (--count > 0);
+      do map[j++] = value; while (--count > 0 && j < size);
     }
     return map;
   }
@@ -538,7 +710,7 @@ class LexicalAnalyzer {
     int zzMarkedPosL;
     int zzEndReadL = zzEndRead;
     char [] zzBufferL = zzBuffer;
-    char [] zzCMapL = ZZ_CMAP;
+    char [] zzCMapL = ZZ_CMAP_ASCII;
 
     int [] zzTransL = ZZ_TRANS;
     int [] zzRowMapL = ZZ_ROWMAP;
@@ -547,6 +719,8 @@ class LexicalAnalyzer {
     while (true) {
       zzMarkedPosL = zzMarkedPos;
 
+      yychar+= zzMarkedPosL-zzStartRead;
+
       boolean zzR = false;
       int zzCh;
       int zzCharCount;
@@ -646,7 +820,8 @@ class LexicalAnalyzer {
               zzCurrentPosL += Character.charCount(zzInput);
             }
           }
-          int zzNext = zzTransL[ zzRowMapL[zzState] + zzCMapL[zzInput] ];
+          int zzClass = zzInput < ZZ_CMAP_ASCII_SIZE ? zzCMapL[zzInput] : ZZ_CMAP_FULL.MAP[zzInput];
+          int zzNext = zzTransL[ zzRowMapL[zzState] + zzClass ];
           if (zzNext == -1) break zzForAction;
           zzState = zzNext;
 
@@ -671,7 +846,7 @@ class LexicalAnalyzer {
             }  // fall though
             case 91: break;
             default:
-          {     return new Symbol(LexicalUnit.END_OF_STREAM, yyline, yycolumn);
+          {     return endOfStream();
  }
         }
       }
@@ -688,107 +863,107 @@ class LexicalAnalyzer {
             // fall through
           case 40: break;
           case 3: 
-            { return new Symbol(LexicalUnit.VARNAME, yyline, yycolumn, yytext());
+            { return identifier();
             } 
             // fall through
           case 41: break;
           case 4: 
-            { return new Symbol(LexicalUnit.NUMBER, yyline, yycolumn, new Integer(yytext()));
+            { return number();
             } 
             // fall through
           case 42: break;
           case 5: 
-            { return new Symbol(LexicalUnit.MINUS, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.MINUS);
             } 
             // fall through
           case 43: break;
           case 6: 
-            { return new Symbol(LexicalUnit.DIVIDE, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.DIVIDE);
             } 
             // fall through
           case 44: break;
           case 7: 
-            { return new Symbol(LexicalUnit.EQUAL, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.EQUAL);
             } 
             // fall through
           case 45: break;
           case 8: 
-            { return new Symbol(LexicalUnit.GREATER, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.GREATER);
             } 
             // fall through
           case 46: break;
           case 9: 
-            { return new Symbol(LexicalUnit.SMALLER, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.SMALLER);
             } 
             // fall through
           case 47: break;
           case 10: 
-            { return new Symbol(LexicalUnit.SEMICOLON, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.SEMICOLON);
             } 
             // fall through
           case 48: break;
           case 11: 
-            { return new Symbol(LexicalUnit.LEFT_PARENTHESIS, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.LEFT_PARENTHESIS);
             } 
             // fall through
           case 49: break;
           case 12: 
-            { return new Symbol(LexicalUnit.RIGHT_PARENTHESIS, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.RIGHT_PARENTHESIS);
             } 
             // fall through
           case 50: break;
           case 13: 
-            { return new Symbol(LexicalUnit.PLUS, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.PLUS);
             } 
             // fall through
           case 51: break;
           case 14: 
-            { return new Symbol(LexicalUnit.TIMES, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.TIMES);
             } 
             // fall through
           case 52: break;
           case 15: 
-            { return new Symbol(LexicalUnit.OR, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.OR);
             } 
             // fall through
           case 53: break;
           case 16: 
-            { return new Symbol(LexicalUnit.DIFFERENT, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.DIFFERENT);
             } 
             // fall through
           case 54: break;
           case 17: 
-            { return new Symbol(LexicalUnit.GREATER_EQUAL, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.GREATER_EQUAL);
             } 
             // fall through
           case 55: break;
           case 18: 
-            { return new Symbol(LexicalUnit.SMALLER_EQUAL, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.SMALLER_EQUAL);
             } 
             // fall through
           case 56: break;
           case 19: 
-            { return new Symbol(LexicalUnit.ASSIGN, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.ASSIGN);
             } 
             // fall through
           case 57: break;
           case 20: 
-            { return new Symbol(LexicalUnit.BY, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.BY);
             } 
             // fall through
           case 58: break;
           case 21: 
-            { return new Symbol(LexicalUnit.IF, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.IF);
             } 
             // fall through
           case 59: break;
           case 22: 
-            { return new Symbol(LexicalUnit.DO, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.DO);
             } 
             // fall through
           case 60: break;
           case 23: 
-            { return new Symbol(LexicalUnit.TO, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.TO);
             } 
             // fall through
           case 61: break;
@@ -798,22 +973,22 @@ class LexicalAnalyzer {
             // fall through
           case 62: break;
           case 25: 
-            { return new Symbol(LexicalUnit.END, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.END);
             } 
             // fall through
           case 63: break;
           case 26: 
-            { return new Symbol(LexicalUnit.NOT, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.NOT);
             } 
             // fall through
           case 64: break;
           case 27: 
-            { return new Symbol(LexicalUnit.FOR, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.FOR);
             } 
             // fall through
           case 65: break;
           case 28: 
-            { return new Symbol(LexicalUnit.AND, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.AND);
             } 
             // fall through
           case 66: break;
@@ -823,47 +998,47 @@ class LexicalAnalyzer {
             // fall through
           case 67: break;
           case 30: 
-            { return new Symbol(LexicalUnit.ELSE, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.ELSE);
             } 
             // fall through
           case 68: break;
           case 31: 
-            { return new Symbol(LexicalUnit.FROM, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.FROM);
             } 
             // fall through
           case 69: break;
           case 32: 
-            { return new Symbol(LexicalUnit.THEN, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.THEN);
             } 
             // fall through
           case 70: break;
           case 33: 
-            { return new Symbol(LexicalUnit.READ, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.READ);
             } 
             // fall through
           case 71: break;
           case 34: 
-            { return new Symbol(LexicalUnit.BEG, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.BEG);
             } 
             // fall through
           case 72: break;
           case 35: 
-            { return new Symbol(LexicalUnit.ENDIF, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.ENDIF);
             } 
             // fall through
           case 73: break;
           case 36: 
-            { return new Symbol(LexicalUnit.WHILE, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.WHILE);
             } 
             // fall through
           case 74: break;
           case 37: 
-            { return new Symbol(LexicalUnit.PRINT, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.PRINT);
             } 
             // fall through
           case 75: break;
           case 38: 
-            { return new Symbol(LexicalUnit.ENDWHILE, yyline, yycolumn, yytext());
+            { return symbol(LexicalUnit.ENDWHILE);
             } 
             // fall through
           case 76: break;
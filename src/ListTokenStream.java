@@ -0,0 +1,40 @@
+import java.util.List;
+
+/**
+ * Stream over a list of symbols which are already all in memory.
+ */
+class ListTokenStream implements TokenStream {
+    /**
+     * Symbol returned after the end of the list
+     */
+    private static final Symbol END_OF_STREAM = new Symbol(LexicalUnit.END_OF_STREAM);
+
+    /**
+     * List of symbols
+     */
+    private final List<Symbol> symbols;
+    /**
+     * Index of the next symbol
+     */
+    private int position;
+
+    ListTokenStream(List<Symbol> symbols) {
+        this.symbols = symbols;
+        this.position = 0;
+    }
+
+    @Override
+    public Symbol peek(int k) {
+        int i = position + k;
+        return i < symbols.size() ? symbols.get(i) : END_OF_STREAM;
+    }
+
+    @Override
+    public Symbol next() {
+        Symbol symbol = peek();
+        if (position < symbols.size()) {
+            position++;
+        }
+        return symbol;
+    }
+}
@@ -0,0 +1,193 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pass on the IR of a function, with its variables in memory, moving the computations giving
+ * the same value at each iteration of a loop out of it, into the block jumping to the loop.
+ * <br>
+ * A loop is found from a jump back to a block dominating it, its header (the block computing the
+ * condition of a while or a for). The loops are processed from the innermost ones, so that an
+ * instruction can be moved out of several loops. An instruction of a loop is invariant if:
+ * <ul>
+ *     <li>it is a load of a variable which isn't assigned in the loop, neither by an assignment
+ *     nor by a read();</li>
+ *     <li>or it is an arithmetic, logical or comparison instruction whose operands are constants
+ *     or values computed out of the loop or invariant. A division is invariant only by a constant
+ *     other than 0 and -1, because it may not have been computed in the loop.</li>
+ * </ul>
+ * The invariant instructions are moved in their order, before the jump of the preheader: the only
+ * block out of the loop jumping to its header. A loop without preheader is left as it is.
+ */
+final class LoopInvariantMover {
+    private final ControlFlowGraph graph;
+    /**
+     * Number of instructions moved out of a loop, an instruction moved out of two loops counts twice
+     */
+    private int moved;
+    /**
+     * Number of loops with a preheader
+     */
+    private int loops;
+
+    private LoopInvariantMover(IR.Function function) {
+        graph = new ControlFlowGraph(function);
+        moved = 0;
+        loops = 0;
+    }
+
+    /**
+     * Move the loop-invariant instructions of a function to the preheaders of their loops, in place
+     *
+     * @param function the function, with its variables in memory
+     * @return a description of the instructions moved, to be displayed
+     */
+    static String move(IR.Function function) {
+        LoopInvariantMover mover = new LoopInvariantMover(function);
+        for (BitSet loop : mover.loops()) {
+            mover.move(loop);
+        }
+        return "Loop-invariant code motion: " + mover.moved + " instructions moved out of " + mover.loops + " loops";
+    }
+
+    /**
+     * Find the blocks of each loop: its header, and the blocks from which a jump back to the
+     * header is reached without going through it.
+     *
+     * @return the blocks of the loops, the inner loops before the loops containing them
+     */
+    private List<BitSet> loops() {
+        Map<Integer, BitSet> loops = new HashMap<>();
+        for (int b = 0; b < graph.blocks.size(); b++) {
+            for (IR.Block successor : ControlFlowGraph.successors(graph.blocks.get(b))) {
+                int header = graph.index(successor);
+                if (!graph.dominates(header, b)) {
+                    continue;
+                }
+                BitSet loop = loops.get(header);
+                if (loop == null) {
+                    loop = new BitSet();
+                    loop.set(header);
+                    loops.put(header, loop);
+                }
+                Deque<Integer> work = new ArrayDeque<>();
+                work.push(b);
+                while (!work.isEmpty()) {
+                    int block = work.pop();
+                    if (!loop.get(block)) {
+                        loop.set(block);
+                        for (int predecessor : graph.predecessors(block)) {
+                            work.push(predecessor);
+                        }
+                    }
+                }
+            }
+        }
+
+        // An inner loop has a header after the header of the loops containing it
+        List<Integer> headers = new ArrayList<>(loops.keySet());
+        headers.sort(null);
+        List<BitSet> ordered = new ArrayList<>(headers.size());
+        for (int i = headers.size() - 1; i >= 0; i--) {
+            ordered.add(loops.get(headers.get(i)));
+        }
+        return ordered;
+    }
+
+    /**
+     * Move the invariant instructions of a loop to its preheader
+     *
+     * @param loop the blocks of the loop, its header is the first one
+     */
+    private void move(BitSet loop) {
+        int header = loop.nextSetBit(0);
+        IR.Block preheader = null;
+        for (int predecessor : graph.predecessors(header)) {
+            if (loop.get(predecessor)) {
+                continue;
+            }
+            IR.Block block = graph.blocks.get(predecessor);
+            if (preheader != null || block.terminator().opcode != IR.Opcode.BR) {
+                return; // Several blocks or a conditional jump lead to the loop
+            }
+            preheader = block;
+        }
+        if (preheader == null) {
+            return;
+        }
+        loops++;
+
+        // Variables assigned in the loop, and the instructions of the loop
+        Map<IR.Value, Boolean> assigned = new IdentityHashMap<>();
+        Map<IR.Value, Boolean> inLoop = new IdentityHashMap<>();
+        for (int b = loop.nextSetBit(0); b >= 0; b = loop.nextSetBit(b + 1)) {
+            for (IR.Instruction instruction : graph.blocks.get(b).instructions) {
+                inLoop.put(instruction, true);
+                if (instruction.opcode == IR.Opcode.STORE) {
+                    assigned.put(instruction.operands.get(1), true);
+                }
+            }
+        }
+
+        // The blocks in reverse post-order, so that the operands of an instruction are visited before it
+        Map<IR.Value, Boolean> invariant = new IdentityHashMap<>();
+        List<IR.Instruction> invariants = new ArrayList<>();
+        for (int b = loop.nextSetBit(0); b >= 0; b = loop.nextSetBit(b + 1)) {
+            IR.Block block = graph.blocks.get(b);
+            for (IR.Instruction instruction : block.instructions) {
+                if (isInvariant(instruction, assigned, inLoop, invariant)) {
+                    invariant.put(instruction, true);
+                    invariants.add(instruction);
+                }
+            }
+            if (!invariants.isEmpty()) {
+                block.instructions.removeIf(invariant::containsKey);
+            }
+        }
+
+        List<IR.Instruction> instructions = preheader.instructions;
+        instructions.addAll(instructions.size() - 1, invariants);
+        moved += invariants.size();
+    }
+
+    private static boolean isInvariant(IR.Instruction instruction, Map<IR.Value, Boolean> assigned,
+                                       Map<IR.Value, Boolean> inLoop, Map<IR.Value, Boolean> invariant) {
+        switch (instruction.opcode) {
+            case LOAD:
+                return !assigned.containsKey(instruction.operands.get(0));
+            case SDIV:
+                IR.Value divisor = instruction.operands.get(1);
+                if (!(divisor instanceof IR.Constant) || ((IR.Constant) divisor).value == 0
+                        || ((IR.Constant) divisor).value == -1) {
+                    return false;
+                }
+                break;
+            case ADD:
+            case SUB:
+            case MUL:
+            case AND:
+            case OR:
+            case EQ:
+            case NE:
+            case SGT:
+            case SGE:
+            case SLT:
+            case SLE:
+                break;
+            default:
+                return false;
+        }
+
+        for (IR.Value operand : instruction.operands) {
+            if (inLoop.containsKey(operand) && !invariant.containsKey(operand)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3,9 +3,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 
 /**
  * Main of the Code, read the code and call the parser
@@ -18,8 +15,26 @@ public class Main{
 
         boolean verbose = false;
         boolean execute = false;
+        boolean threaded = false;
+        boolean packed = false;
+        boolean mapped = false;
+        boolean parallel = false;
+        boolean table = false;
+        boolean offHeap = false;
         String texFile = "";
         String outputFile = "";
+        String sink = "file";
+        String astCacheDirectory = "";
+        long astCacheSize = 64L << 20;
+        boolean astCacheStatistics = false;
+        String cacheDirectory = "";
+        long cacheSize = 64L << 20;
+        boolean cacheStatistics = false;
+        boolean fold = true;
+        boolean foldStatistics = false;
+        boolean licm = true;
+        boolean ssa = true;
+        boolean irStatistics = false;
 
         int i = 0;
         String arg = args[i];
@@ -29,7 +44,7 @@ public class Main{
             i++;
             arg = args[i];
         }
-        FileReader Source = new FileReader(arg);
+        String sourceFile = arg;
 
         i++;
         while (i < args.length) {
@@ -45,52 +60,257 @@ public class Main{
                 case "-o":
                     outputFile = args[++i];
                     break;
+                case "-sink":
+                    sink = args[++i];
+                    break;
+                case "-threaded":
+                    threaded = true;
+                    break;
+                case "-packed":
+                    packed = true;
+                    break;
+                case "-mmap":
+                    mapped = true;
+                    break;
+                case "-parallel":
+                    parallel = true;
+                    break;
+                case "-table":
+                    table = true;
+                    break;
+                case "-offheap":
+                    offHeap = true;
+                    break;
+                case "-ast-cache":
+                    astCacheDirectory = args[++i];
+                    break;
+                case "-ast-cache-size":
+                    astCacheSize = Long.parseLong(args[++i]) << 20;
+                    break;
+                case "-ast-cache-stats":
+                    astCacheStatistics = true;
+                    break;
+                case "-cache":
+                    cacheDirectory = args[++i];
+                    break;
+                case "-cache-size":
+                    cacheSize = Long.parseLong(args[++i]) << 20;
+                    break;
+                case "-cache-stats":
+                    cacheStatistics = true;
+                    break;
+                case "-no-fold":
+                    fold = false;
+                    break;
+                case "-fold-stats":
+                    foldStatistics = true;
+                    break;
+                case "-no-licm":
+                    licm = false;
+                    break;
+                case "-no-ssa":
+                    ssa = false;
+                    break;
+                case "-ir-stats":
+                    irStatistics = true;
+                    break;
             }
             i++;
         }
 
-        final LexicalAnalyzer analyzer = new LexicalAnalyzer(Source);
-        List<Symbol> symbols = new ArrayList<>();
+        // The caches are only used when the parse tree isn't needed
+        byte[] sourceBytes = null;
+        OutputCache outputCache = null;
+        String options = "";
+        if (!cacheDirectory.equals("") && texFile.equals("") && !verbose) {
+            outputCache = new OutputCache(Paths.get(cacheDirectory), cacheSize);
+            sourceBytes = Files.readAllBytes(Paths.get(sourceFile));
+            // The modes giving the same code are kept apart, so that a bug of one mode never reaches another
+            options = (threaded ? "-threaded " : "") + (packed ? "-packed " : "") + (mapped ? "-mmap " : "")
+                    + (parallel ? "-parallel " : "") + (table ? "-table " : "")
+                    + (offHeap ? "-offheap " : "") + (fold ? "" : "-no-fold ") + (licm ? "" : "-no-licm ")
+                    + (ssa ? "" : "-no-ssa ");
+            byte[] code = outputCache.lookup(sourceBytes, options);
+            if (code != null) {
+                writeCode(code, outputFile);
+                closeCache(outputCache, cacheStatistics);
+                if (execute)
+                    execute(outputFile);
+                return;
+            }
+        }
 
-        Symbol symbol;
-        while(!(symbol = analyzer.nextToken()).getType().equals(LexicalUnit.END_OF_STREAM)){
-            symbols.add(symbol);
+        AstCache astCache = null;
+        FlatTree cachedTree = null;
+        if (!astCacheDirectory.equals("") && texFile.equals("") && !verbose) {
+            astCache = new AstCache(Paths.get(astCacheDirectory), astCacheSize);
+            if (sourceBytes == null) {
+                sourceBytes = Files.readAllBytes(Paths.get(sourceFile));
+            }
+            cachedTree = astCache.lookup(sourceBytes, fold ? "" : "-no-fold");
         }
 
-        Parser parser = new Parser(symbols, verbose);
-        ParseTree parseTree = parser.parse();
+        FlatTree tree = cachedTree;
+        if (tree == null) {
+            AbstractSyntaxTree AST;
+            Reader Source = mapped ? new MappedSourceReader(Paths.get(sourceFile)) : new FileReader(sourceFile);
+            final LexicalAnalyzer analyzer = new LexicalAnalyzer(Source);
+            TokenStream symbols;
+            if (parallel) {
+                CharArrayWriter source = new CharArrayWriter();
+                Source.transferTo(source);
+                Source.close();
+                symbols = new TokenBufferStream(new ParallelLexer().lex(source.toCharArray()));
+            }
+            else if (packed || offHeap) {
+                TokenBuffer tokens = offHeap ? new OffHeapTokenBuffer(analyzer.getIdentifiers()) : new TokenBuffer(analyzer.getIdentifiers());
+                analyzer.fill(tokens);
+                symbols = new TokenBufferStream(tokens);
+            }
+            else if (threaded) {
+                symbols = new ThreadedTokenStream(analyzer);
+            }
+            else {
+                symbols = new LexerTokenStream(analyzer);
+            }
 
-        if (parseTree == null)
-            return;
+            if (texFile.equals("") && !verbose) {
+                // The ParseTree is only needed for the LaTeX export, the verbose derivation and the TableParser
+                if (table) {
+                    ParseTree parseTree = new TableParser(symbols).parse();
+                    AST = parseTree == null ? null : new AbstractSyntaxTree(parseTree);
+                }
+                else {
+                    AST = new AstParser(symbols).parse();
+                }
 
-        if (!texFile.equals("")) {
-            Path file = Paths.get(texFile);
-            Files.write(file, Collections.singleton(parseTree.toLaTeX()), StandardCharsets.UTF_8);
+                if (AST == null) {
+                    closeCache(astCache, astCacheStatistics);
+                    closeCache(outputCache, cacheStatistics);
+                    return;
+                }
+            }
+            else {
+                ParseTree parseTree;
+                if (table) {
+                    parseTree = new TableParser(symbols, verbose).parse();
+                }
+                else {
+                    parseTree = new Parser(symbols, verbose).parse();
+                }
+
+                if (parseTree == null)
+                    return;
+
+                if (!texFile.equals("")) {
+                    try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(texFile), StandardCharsets.UTF_8)) {
+                        parseTree.writeLaTeX(writer);
+                        writer.newLine();
+                    }
+                }
+
+                AST = new AbstractSyntaxTree(parseTree);
+            }
+
+            if (!texFile.equals("")) {
+                texFile = texFile.replace(".", "_AST.");
+                try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(texFile), StandardCharsets.UTF_8)) {
+                    AST.writeLaTeX(writer);
+                    writer.newLine();
+                }
+            }
+
+            if (fold) {
+                int removed = ConstantFolder.fold(AST);
+                String eliminated = DeadCodeEliminator.eliminate(AST);
+                if (foldStatistics) {
+                    System.err.println("Constant folding: " + removed + " nodes removed");
+                    System.err.println(eliminated);
+                }
+            }
+
+            // The AbstractSyntaxTree is only referenced until it is stored in the FlatTree, so it
+            // isn't kept in the heap with the IR while the code is generated
+            tree = offHeap ? OffHeapTree.of(AST) : ArenaTree.of(AST);
+            if (astCache != null) {
+                astCache.store(sourceBytes, fold ? "" : "-no-fold", tree);
+            }
+        }
+
+        OutputSink output;
+        if (outputCache != null) {
+            // The code is kept to be put in the cache, then written
+            output = new MemorySink();
+        }
+        else if (outputFile.equals("")) {
+            output = new StdoutSink();
+        }
+        else if (sink.equals("channel")) {
+            output = new ChannelSink(Paths.get(outputFile));
+        }
+        else {
+            output = new FileSink(Paths.get(outputFile));
         }
 
-        AbstractSyntaxTree AST = new AbstractSyntaxTree(parseTree);
+        Compiler compiler = new Compiler(output, licm, ssa);
+        compiler.compile(tree);
+        compiler.close();
+        if (irStatistics && compiler.getStatistics() != null) {
+            System.err.println(compiler.getStatistics());
+        }
+        closeCache(astCache, astCacheStatistics);
 
-        if (!texFile.equals("")) {
-            texFile = texFile.replace(".", "_AST.");
-            Path file = Paths.get(texFile);
-            Files.write(file, Collections.singleton(AST.toLaTeX()), StandardCharsets.UTF_8);
+        if (outputCache != null) {
+            byte[] code = output.toString().getBytes(StandardCharsets.UTF_8);
+            outputCache.store(sourceBytes, options, code);
+            writeCode(code, outputFile);
+            closeCache(outputCache, cacheStatistics);
         }
 
-        Compiler compiler = new Compiler(outputFile);
-        compiler.compile(AST);
+        if (execute)
+            execute(outputFile);
+    }
 
-        if (execute) {
-            String byteCodeFile = outputFile.substring(0, outputFile.length()-2) + "bc";
-            Process process = new ProcessBuilder("llvm-as", outputFile, "-o=" + byteCodeFile).inheritIO().start();
-            process.waitFor();
+    /**
+     * Write the code generated in the output file, or on the standard output if there is none
+     */
+    private static void writeCode(byte[] code, String outputFile) throws IOException {
+        if (outputFile.equals("")) {
+            System.out.write(code);
+            System.out.flush();
+        }
+        else {
+            Files.write(Paths.get(outputFile), code);
+        }
+    }
+
+    /**
+     * Assemble the code of the output file and run it
+     */
+    private static void execute(String outputFile) throws IOException, InterruptedException {
+        String byteCodeFile = outputFile.substring(0, outputFile.length()-2) + "bc";
+        Process process = new ProcessBuilder("llvm-as", outputFile, "-o=" + byteCodeFile).inheritIO().start();
+        process.waitFor();
+
+        process = new ProcessBuilder("lli", byteCodeFile).inheritIO().start();
+        process.waitFor();
 
-            process = new ProcessBuilder("lli", byteCodeFile).inheritIO().start();
-            process.waitFor();
+        File tempFile = new File("temp.ll");
+        tempFile.delete();
+        tempFile = new File("temp.bc");
+        tempFile.delete();
+    }
+
+    /**
+     * Save the statistics of a cache, and display them if asked
+     */
+    private static void closeCache(FileCache cache, boolean statistics) throws IOException {
+        if (cache == null)
+            return;
 
-            File tempFile = new File("temp.ll");
-            tempFile.delete();
-            tempFile = new File("temp.bc");
-            tempFile.delete();
+        cache.close();
+        if (statistics) {
+            System.err.println(cache.statistics());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader of a source file which is memory-mapped instead of being read through a FileReader.
+ * Since the sources are ASCII, each byte is directly widened to a char without any charset decoding.
+ * <br>
+ * When a non-ASCII byte is met, the rest of the file is read through an InputStreamReader
+ * decoding with the default charset, as the FileReader would do.
+ */
+class MappedSourceReader extends Reader {
+    /**
+     * Maximal number of bytes mapped at the same time
+     */
+    private static final long WINDOW_SIZE = 1 << 30;
+
+    /**
+     * Channel of the source file
+     */
+    private final FileChannel channel;
+    /**
+     * Size of the source file in bytes
+     */
+    private final long size;
+    /**
+     * Position in the file of the first byte of the window
+     */
+    private long windowStart;
+    /**
+     * Mapped part of the file currently read
+     */
+    private MappedByteBuffer window;
+    /**
+     * Bytes copied from the window before being widened to chars
+     */
+    private byte[] bytes = new byte[0];
+    /**
+     * Reader used for the rest of the file once a non-ASCII byte has been met, null before
+     */
+    private Reader fallback;
+
+    MappedSourceReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size();
+        windowStart = 0;
+        window = map(0);
+    }
+
+    /**
+     * Map the part of the file starting at the position
+     */
+    private MappedByteBuffer map(long position) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) throws IOException {
+        if (fallback != null) {
+            return fallback.read(chars, offset, length);
+        }
+
+        if (!window.hasRemaining()) {
+            windowStart += window.limit();
+            if (windowStart >= size) {
+                return -1;
+            }
+            window = map(windowStart);
+        }
+
+        int position = window.position();
+        int count = Math.min(length, window.remaining());
+        if (bytes.length < count) {
+            bytes = new byte[count];
+        }
+        window.get(bytes, 0, count);
+        for (int i = 0; i < count; i++) {
+            byte b = bytes[i];
+            if (b < 0) {
+                // Non-ASCII byte, the rest of the file is decoded from this byte
+                window.position(position + i);
+                fallback = new InputStreamReader(Channels.newInputStream(channel.position(windowStart + position + i)),
+                        Charset.defaultCharset());
+                return i > 0 ? i : fallback.read(chars, offset, length);
+            }
+            chars[offset + i] = (char) b;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fallback != null) {
+            fallback.close();
+        }
+        channel.close();
+    }
+}
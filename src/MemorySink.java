@@ -0,0 +1,36 @@
+/**
+ * Sink keeping the code in memory in a StringBuilder.
+ * The code can be retrieved with toString() once the compilation is done.
+ */
+public class MemorySink implements OutputSink {
+    /**
+     * Code written so far
+     */
+    private final StringBuilder code;
+
+    public MemorySink() {
+        code = new StringBuilder();
+    }
+
+    @Override
+    public void write(String line) {
+        code.append(line).append(System.lineSeparator());
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Get the code written in the sink
+     * @return the code
+     */
+    @Override
+    public String toString() {
+        return code.toString();
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Kind of a node of the FlatTree.
+ * The passes dispatch on it with a switch instead of comparing labels.
+ */
+public enum NodeKind {
+    PROGRAM,
+    CODE, // Only in the FlatTree, where a code is a node with the instructions as children
+    ASSIGN,
+    IF,
+    WHILE,
+    FOR,
+    PRINT,
+    READ,
+    CONSTANT,
+    VARIABLE,
+    ADD,
+    SUB,
+    MUL,
+    DIV,
+    NEG,
+    AND,
+    OR,
+    NOT,
+    EQ,
+    NE,
+    GT,
+    GE,
+    LT,
+    LE
+}
@@ -0,0 +1,65 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Table of records of a fixed number of ints, stored outside of the heap in direct ByteBuffers.
+ * <br>
+ * The records are allocated by chunks of 65536 which are never copied nor moved, so the table
+ * grows without copy and the garbage collector only sees one small object per chunk, whatever
+ * the number of records.
+ */
+final class OffHeapRecords {
+    /**
+     * A chunk holds 2^CHUNK_BITS records
+     */
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    /**
+     * Number of bytes of a record
+     */
+    private final int recordBytes;
+    private ByteBuffer[] chunks;
+    /**
+     * Number of records
+     */
+    private int size;
+
+    /**
+     * @param fields number of ints of a record
+     */
+    OffHeapRecords(int fields) {
+        this.recordBytes = fields * Integer.BYTES;
+        this.chunks = new ByteBuffer[4];
+        this.size = 0;
+    }
+
+    /**
+     * Add a record, whose fields are all 0
+     *
+     * @return the index of the record
+     */
+    int add() {
+        int chunk = size >>> CHUNK_BITS;
+        if ((size & CHUNK_MASK) == 0) {
+            if (chunk == chunks.length) {
+                chunks = Arrays.copyOf(chunks, 2 * chunk);
+            }
+            chunks[chunk] = ByteBuffer.allocateDirect(recordBytes << CHUNK_BITS).order(ByteOrder.nativeOrder());
+        }
+        return size++;
+    }
+
+    int get(int record, int field) {
+        return chunks[record >>> CHUNK_BITS].getInt((record & CHUNK_MASK) * recordBytes + field * Integer.BYTES);
+    }
+
+    void set(int record, int field, int value) {
+        chunks[record >>> CHUNK_BITS].putInt((record & CHUNK_MASK) * recordBytes + field * Integer.BYTES, value);
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * TokenBuffer whose tokens are stored outside of the heap, a record of 4 ints per token.
+ * The lexical analyzer fills it and the parsers read it as any TokenBuffer.
+ */
+class OffHeapTokenBuffer extends TokenBuffer {
+    /*
+    Fields of the records
+     */
+    private static final int UNIT = 0;
+    private static final int LINE = 1;
+    private static final int COLUMN = 2;
+    private static final int VALUE = 3;
+
+    private static final LexicalUnit[] UNITS = LexicalUnit.values();
+
+    private final OffHeapRecords tokens;
+
+    /**
+     * @param identifiers table of the identifiers whose ids are stored in the values,
+     *                    the one of the lexical analyzer filling the buffer
+     */
+    OffHeapTokenBuffer(IdentifierTable identifiers) {
+        super(identifiers, 0);
+        this.tokens = new OffHeapRecords(4);
+    }
+
+    @Override
+    void add(LexicalUnit unit, int line, int column, int value) {
+        int i = tokens.add();
+        tokens.set(i, UNIT, unit.ordinal());
+        tokens.set(i, LINE, line);
+        tokens.set(i, COLUMN, column);
+        tokens.set(i, VALUE, value);
+    }
+
+    @Override
+    int size() {
+        return tokens.size();
+    }
+
+    @Override
+    LexicalUnit unitAt(int i) {
+        return UNITS[tokens.get(i, UNIT)];
+    }
+
+    @Override
+    int lineAt(int i) {
+        return tokens.get(i, LINE);
+    }
+
+    @Override
+    int columnAt(int i) {
+        return tokens.get(i, COLUMN);
+    }
+
+    @Override
+    int valueAt(int i) {
+        return tokens.get(i, VALUE);
+    }
+}
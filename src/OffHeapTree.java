@@ -0,0 +1,107 @@
+/**
+ * FlatTree stored outside of the heap, a record of 6 ints per node.
+ * It is read through the same interface as the ArenaTree, but the garbage collector
+ * doesn't have to look at the nodes.
+ * <br>
+ * It doesn't remove the peak of the heap: the tree is built from an AbstractSyntaxTree, which is
+ * in the heap until the tree is filled, and the IR generated from the tree is in the heap too.
+ */
+public class OffHeapTree extends AbstractFlatTree {
+    private static final NodeKind[] KINDS = NodeKind.values();
+
+    /*
+    Fields of the records
+     */
+    private static final int KIND = 0;
+    private static final int VALUE = 1;
+    private static final int FIRST_CHILD = 2;
+    private static final int NEXT_SIBLING = 3;
+    private static final int LINE = 4;
+    private static final int COLUMN = 5;
+
+    private final OffHeapRecords nodes;
+
+    OffHeapTree() {
+        nodes = new OffHeapRecords(6);
+    }
+
+    /**
+     * Store the tree of a program outside of the heap.
+     *
+     * @param AST the AbstractSyntaxTree whose label is Program
+     * @return the tree stored outside of the heap
+     */
+    public static OffHeapTree of(AbstractSyntaxTree AST) {
+        OffHeapTree tree = new OffHeapTree();
+        tree.fill(AST);
+        return tree;
+    }
+
+    @Override
+    int add(NodeKind kind, int value, int line, int column) {
+        int index = nodes.add();
+        nodes.set(index, KIND, kind.ordinal());
+        nodes.set(index, VALUE, value);
+        nodes.set(index, FIRST_CHILD, NONE);
+        nodes.set(index, NEXT_SIBLING, NONE);
+        nodes.set(index, LINE, line);
+        nodes.set(index, COLUMN, column);
+        return index;
+    }
+
+    @Override
+    void setFirstChild(int node, int child) {
+        nodes.set(node, FIRST_CHILD, child);
+    }
+
+    @Override
+    void setNextSibling(int node, int sibling) {
+        nodes.set(node, NEXT_SIBLING, sibling);
+    }
+
+    @Override
+    void setPosition(int node, int line, int column) {
+        nodes.set(node, LINE, line);
+        nodes.set(node, COLUMN, column);
+    }
+
+    @Override
+    public int root() {
+        return 0;
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public NodeKind kind(int node) {
+        return KINDS[nodes.get(node, KIND)];
+    }
+
+    @Override
+    public int value(int node) {
+        return nodes.get(node, VALUE);
+    }
+
+    @Override
+    public int firstChild(int node) {
+        return nodes.get(node, FIRST_CHILD);
+    }
+
+    @Override
+    public int nextSibling(int node) {
+        return nodes.get(node, NEXT_SIBLING);
+    }
+
+    @Override
+    public int line(int node) {
+        return nodes.get(node, LINE);
+    }
+
+    @Override
+    public int column(int node) {
+        return nodes.get(node, COLUMN);
+    }
+}
@@ -0,0 +1,63 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * Cache on disk of the LLVM IR code generated for the programs, so that a source already
+ * compiled with the same options by the same compiler isn't compiled again.
+ * <br>
+ * The code is stored in a file named after the SHA-256 of the version of the compiler,
+ * the options and the bytes of the source. The version of the compiler is the hash of its
+ * classes, so that a new compiler never uses the code generated by an older one.
+ */
+class OutputCache extends FileCache {
+    /**
+     * @param directory directory of the cache, created if needed
+     * @param maxSize maximum total size of the codes, in bytes
+     */
+    OutputCache(Path directory, long maxSize) throws IOException {
+        super(directory, "Output", ".ll", maxSize);
+    }
+
+    /**
+     * Get the code generated for a source
+     *
+     * @param source the bytes of the source
+     * @param options the options of the compilation changing the code
+     * @return the code, null if it isn't in the cache
+     */
+    byte[] lookup(byte[] source, String options) throws IOException {
+        Path file = file(source, options);
+        byte[] code = null;
+        try {
+            code = Files.readAllBytes(file);
+            touch(file);
+        } catch (NoSuchFileException e) {
+            code = null; // Never compiled, or evicted
+        }
+
+        count(code != null);
+        return code;
+    }
+
+    /**
+     * Put the code generated for a source in the cache, then evict the least recently
+     * used codes if the cache is too big.
+     *
+     * @param source the bytes of the source
+     * @param options the options of the compilation changing the code
+     * @param code the code generated
+     */
+    void store(byte[] source, String options, byte[] code) throws IOException {
+        store(file(source, options), file -> Files.write(file, code));
+    }
+
+    /**
+     * @return the file of the code of a source
+     */
+    private Path file(byte[] source, String options) throws IOException {
+        return file(version(), options.getBytes(StandardCharsets.UTF_8), source);
+    }
+}
@@ -0,0 +1,32 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination of the LLVM IR code written by the compiler.
+ * A sink is opened once, receives the code line by line and must be closed
+ * at the end so that everything buffered is really written.
+ */
+public interface OutputSink extends Closeable {
+    /**
+     * Write a line of code followed by a line separator.
+     *
+     * @param line the line to be written
+     * @throws IOException if the line could not be written
+     */
+    void write(String line) throws IOException;
+
+    /**
+     * Force the lines buffered so far to be written to the destination.
+     *
+     * @throws IOException if the lines could not be written
+     */
+    void flush() throws IOException;
+
+    /**
+     * Flush the sink and release the resources it holds.
+     *
+     * @throws IOException if the sink could not be closed
+     */
+    @Override
+    void close() throws IOException;
+}
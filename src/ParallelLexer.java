@@ -0,0 +1,230 @@
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Lexer splitting a big source in chunks at line boundaries and lexing the chunks concurrently.
+ * <br>
+ * A chunk is lexed assuming it starts outside of a comment, which is wrong when a CO ... CO
+ * comment goes over the boundary. So the chunks are then taken in order: knowing the lexical state
+ * at the end of the previous chunk, a chunk which was lexed from the wrong state is lexed again
+ * from the right one. The result is the same TokenBuffer as the one of the sequential lexer,
+ * with the same line numbers and identifier ids.
+ */
+class ParallelLexer {
+    /**
+     * Minimal number of characters of a chunk, smaller sources are lexed in one chunk
+     */
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Pool running the analysis of the chunks
+     */
+    private final ForkJoinPool pool;
+
+    ParallelLexer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    ParallelLexer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Result of the analysis of a chunk from a given lexical state
+     */
+    private static class Chunk {
+        /**
+         * Lexical state at the beginning of the chunk
+         */
+        int startState;
+        /**
+         * Lexical state at the end of the chunk
+         */
+        int endState;
+        /**
+         * Analyzer of the chunk, whose identifier table gives the ids of the tokens
+         */
+        LexicalAnalyzer analyzer;
+        /**
+         * Tokens of the chunk, ended by an END_OF_STREAM token unless the chunk ends in a comment
+         */
+        TokenBuffer tokens;
+        /**
+         * Error raised during the analysis, null if there was none
+         */
+        RuntimeException error;
+    }
+
+    /**
+     * Lex the whole source.
+     *
+     * @param source characters of the source
+     * @return the tokens of the source, identical to the ones of LexicalAnalyzer.fill()
+     * @throws PatternSyntaxException if there is a lexical error in the source
+     */
+    TokenBuffer lex(char[] source) throws PatternSyntaxException {
+        // Split the source after a newline near each multiple of the chunk size
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, source.length / pool.getParallelism());
+        List<Integer> starts = new ArrayList<>();
+        List<Integer> lines = new ArrayList<>();
+        int start = 0;
+        int line = 0;
+        do {
+            starts.add(start);
+            lines.add(line);
+            int end = start + chunkSize;
+            while (end < source.length && source[end - 1] != '\n') {
+                end++;
+            }
+            end = Math.min(end, source.length);
+            line += countLines(source, start, end);
+            start = end;
+        } while (start < source.length);
+        starts.add(source.length);
+
+        // A small source is simply lexed sequentially
+        if (lines.size() == 1) {
+            Chunk chunk = lex(source, 0, source.length, 0, LexicalAnalyzer.YYINITIAL);
+            if (chunk.error != null) {
+                throw chunk.error;
+            }
+            return chunk.tokens;
+        }
+
+        // Lex all the chunks concurrently, assuming they don't start in a comment
+        List<Callable<Chunk>> tasks = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            int chunkStart = starts.get(i);
+            int chunkEnd = starts.get(i + 1);
+            int chunkLine = lines.get(i);
+            tasks.add(() -> lex(source, chunkStart, chunkEnd, chunkLine, LexicalAnalyzer.YYINITIAL));
+        }
+        List<Future<Chunk>> chunks = pool.invokeAll(tasks);
+
+        // Take the chunks in order, lexing again the ones which started in the wrong state
+        IdentifierTable identifiers = new IdentifierTable();
+        TokenBuffer result = new TokenBuffer(identifiers);
+        int state = LexicalAnalyzer.YYINITIAL;
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = get(chunks.get(i));
+            if (chunk.startState != state) {
+                chunk = lex(source, starts.get(i), starts.get(i + 1), lines.get(i), state);
+            }
+            boolean last = i == chunks.size() - 1;
+            if (chunk.error != null && (last || chunk.endState != LexicalAnalyzer.LONG_COMMENT)) {
+                throw chunk.error;
+            }
+            append(result, chunk, last);
+            state = chunk.endState;
+        }
+        return result;
+    }
+
+    /**
+     * Lex the characters source[start..end[ from the given lexical state.
+     */
+    private static Chunk lex(char[] source, int start, int end, int line, int state) {
+        Chunk chunk = new Chunk();
+        chunk.startState = state;
+        chunk.analyzer = new LexicalAnalyzer(new CharArrayReader(source, start, end - start));
+        chunk.analyzer.startAt(line, state);
+        chunk.tokens = new TokenBuffer(chunk.analyzer.getIdentifiers());
+        try {
+            chunk.analyzer.fill(chunk.tokens);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            // In a comment, the only error is the end of the input before the end of the comment,
+            // which is only an error for the last chunk
+            chunk.error = e;
+        }
+        chunk.endState = chunk.analyzer.yystate();
+        return chunk;
+    }
+
+    /**
+     * Copy the tokens of the chunk at the end of the result, giving the identifiers their id in the
+     * result. The END_OF_STREAM token is only copied for the last chunk.
+     */
+    private static void append(TokenBuffer result, Chunk chunk, boolean last) {
+        IdentifierTable chunkIdentifiers = chunk.analyzer.getIdentifiers();
+        int[] ids = new int[chunkIdentifiers.size()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = -1;
+        }
+
+        TokenBuffer tokens = chunk.tokens;
+        for (int i = 0; i < tokens.size(); i++) {
+            LexicalUnit unit = tokens.unitAt(i);
+            int value = tokens.valueAt(i);
+            if (unit == LexicalUnit.END_OF_STREAM && !last) {
+                break;
+            }
+            if (unit == LexicalUnit.VARNAME) {
+                if (ids[value] < 0) {
+                    ids[value] = result.getIdentifiers().intern(chunkIdentifiers.get(value).getName());
+                }
+                value = ids[value];
+            }
+            result.add(unit, tokens.lineAt(i), tokens.columnAt(i), value);
+        }
+    }
+
+    /**
+     * Count the line terminators of source[start..end[ the same way as the lexical analyzer does.
+     */
+    private static int countLines(char[] source, int start, int end) {
+        int lines = 0;
+        boolean afterCarriageReturn = false;
+        for (int i = start; i < end; i++) {
+            switch (source[i]) {
+                case '\u000B':
+                case '\u000C':
+                case '\u0085':
+                case '\u2028':
+                case '\u2029':
+                    lines++;
+                    afterCarriageReturn = false;
+                    break;
+                case '\r':
+                    lines++;
+                    afterCarriageReturn = true;
+                    break;
+                case '\n':
+                    if (!afterCarriageReturn) {
+                        lines++;
+                    }
+                    afterCarriageReturn = false;
+                    break;
+                default:
+                    afterCarriageReturn = false;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Wait for the result of the analysis of a chunk.
+     */
+    private static Chunk get(Future<Chunk> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while lexing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -41,16 +42,14 @@ public class ParseTree {
      * Writes the tree as LaTeX code
      */
     public String toLaTexTree() {
-        StringBuilder treeTeX = new StringBuilder();
-        treeTeX.append("[");
-        treeTeX.append("{").append(label.getValue()).append("}");
-        treeTeX.append(" ");
+        return TreeExport.toString(this::writeLaTexTree);
+    }
 
-        for (ParseTree child : children) {
-            treeTeX.append(child.toLaTexTree());
-        }
-        treeTeX.append("]");
-        return treeTeX.toString();
+    /**
+     * Writes the tree as LaTeX code in out, without recursion
+     */
+    public void writeLaTexTree(Appendable out) throws IOException {
+        TreeExport.writeLaTexTree(this, ParseTree::getChildren, tree -> tree.getLabel().getValue(), out);
     }
 
     /**
@@ -58,16 +57,14 @@ public class ParseTree {
      * files.
      */
     public String toTikZ() {
-        StringBuilder treeTikZ = new StringBuilder();
-        treeTikZ.append("node {");
-        treeTikZ.append(label.getValue());
-        treeTikZ.append("}\n");
-        for (ParseTree child : children) {
-            treeTikZ.append("child { ");
-            treeTikZ.append(child.toTikZ());
-            treeTikZ.append(" }\n");
-        }
-        return treeTikZ.toString();
+        return TreeExport.toString(this::writeTikZ);
+    }
+
+    /**
+     * Writes the tree as TikZ code in out, without recursion
+     */
+    public void writeTikZ(Appendable out) throws IOException {
+        TreeExport.writeTikZ(this, ParseTree::getChildren, tree -> tree.getLabel().getValue(), out);
     }
 
     /**
@@ -75,7 +72,14 @@ public class ParseTree {
      * LaTeX undertands it.
      */
     public String toTikZPicture() {
-        return "\\begin{tikzpicture}[tree layout]\n\\" + toTikZ() + ";\n\\end{tikzpicture}";
+        return TreeExport.toString(this::writeTikZPicture);
+    }
+
+    /**
+     * Writes the tree as a TikZ picture in out
+     */
+    public void writeTikZPicture(Appendable out) throws IOException {
+        TreeExport.writeTikZPicture(this, ParseTree::getChildren, tree -> tree.getLabel().getValue(), out);
     }
 
     /**
@@ -92,8 +96,14 @@ public class ParseTree {
      * </pre>
      */
     public String toLaTeXLua() {
-        return "\\RequirePackage{luatex85}\n\\documentclass{standalone}\n\n\\usepackage[T1]{fontenc}\n\\usepackage{tikz}\n\n\\usetikzlibrary{graphdrawing, graphdrawing.trees}\n\n\\begin{document}\n\n"
-                + toTikZPicture() + "\n\n\\end{document}\n%% Local Variables:\n%% TeX-engine: luatex\n%% End:";
+        return TreeExport.toString(this::writeLaTeXLua);
+    }
+
+    /**
+     * Writes the tree as a LaTeX document for LuaLaTeX in out
+     */
+    public void writeLaTeXLua(Appendable out) throws IOException {
+        TreeExport.writeLaTeXLua(this, ParseTree::getChildren, tree -> tree.getLabel().getValue(), out);
     }
 
     /**
@@ -101,7 +111,14 @@ public class ParseTree {
      * using the latex code of the tree
      */
     public String toForestPicture() {
-        return "\\begin{forest}for tree={rectangle,draw, l sep=20pt}" + toLaTexTree() + ";\n\\end{forest}";
+        return TreeExport.toString(this::writeForestPicture);
+    }
+
+    /**
+     * Writes the tree as a forest picture in out
+     */
+    public void writeForestPicture(Appendable out) throws IOException {
+        TreeExport.writeForestPicture(this, ParseTree::getChildren, tree -> tree.getLabel().getValue(), out);
     }
 
     /**
@@ -115,8 +132,15 @@ public class ParseTree {
      * </pre>
      */
     public String toLaTeX() {
-        return "\\documentclass[border=5pt]{standalone}\n\n\\usepackage[T1]{fontenc}\n\\usepackage{tikz}\n\\usepackage{forest}\n\n\\begin{document}\n\n"
-                + toForestPicture() + "\n\n\\end{document}\n%% Local Variables:\n%% TeX-engine: pdflatex\n%% End:";
+        return TreeExport.toString(this::writeLaTeX);
+    }
+
+    /**
+     * Writes the tree as a LaTeX document for PDFLaTeX in out. The document is written
+     * piece by piece, so out can be a Writer on the file.
+     */
+    public void writeLaTeX(Appendable out) throws IOException {
+        TreeExport.writeLaTeX(this, ParseTree::getChildren, tree -> tree.getLabel().getValue(), out);
     }
 
     /**
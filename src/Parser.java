@@ -1,37 +1,70 @@
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A recursive descent parser for the compiler.
  * Each variable has a function associated which calls the other ones according to the action table.
  * If the rule contains terminals, each one of them will me matched.
+ * The right recursive rules of the arithmetic expressions and of the conditions are followed with loops.
  */
 class Parser {
     /**
-     * List of symbols for the input
+     * Stream of symbols for the input
      */
-    private final java.util.List<Symbol> symbols;
+    private final TokenStream symbols;
     /**
      * Verbose boolean
      */
     private final boolean v;
-    /**
-     * Lookahead pointer
-     */
-    private int l;
     /**
      * Syntax Error boolean
      */
     private boolean syntaxError;
+    /**
+     * Lookaheads starting an arithmetic expression
+     */
+    private static final Set<LexicalUnit> EXPRESSION_START = EnumSet.of(LexicalUnit.VARNAME,
+            LexicalUnit.NUMBER, LexicalUnit.MINUS, LexicalUnit.LEFT_PARENTHESIS);
+    /**
+     * Lookaheads for which the rule [17] <ExprArith'> -> ε is applied
+     */
+    private static final Set<LexicalUnit> EXPR_ARITH_END = EnumSet.of(LexicalUnit.END,
+            LexicalUnit.SEMICOLON, LexicalUnit.THEN, LexicalUnit.ENDIF, LexicalUnit.ELSE, LexicalUnit.OR,
+            LexicalUnit.AND, LexicalUnit.EQUAL, LexicalUnit.GREATER_EQUAL, LexicalUnit.GREATER,
+            LexicalUnit.SMALLER_EQUAL, LexicalUnit.SMALLER, LexicalUnit.DIFFERENT, LexicalUnit.DO,
+            LexicalUnit.ENDWHILE, LexicalUnit.BY, LexicalUnit.TO);
+    /**
+     * Lookaheads for which the rule [21] <Prod'> -> ε is applied
+     */
+    private static final Set<LexicalUnit> PROD_END = EnumSet.of(LexicalUnit.END, LexicalUnit.SEMICOLON,
+            LexicalUnit.PLUS, LexicalUnit.MINUS, LexicalUnit.THEN, LexicalUnit.ENDIF, LexicalUnit.ELSE,
+            LexicalUnit.OR, LexicalUnit.AND, LexicalUnit.EQUAL, LexicalUnit.GREATER_EQUAL, LexicalUnit.GREATER,
+            LexicalUnit.SMALLER_EQUAL, LexicalUnit.SMALLER, LexicalUnit.DIFFERENT, LexicalUnit.DO,
+            LexicalUnit.ENDWHILE, LexicalUnit.BY, LexicalUnit.TO);
+    /**
+     * Comparators of the rules [38] to [43]
+     */
+    private static final Set<LexicalUnit> COMPARATORS = EnumSet.of(LexicalUnit.SMALLER,
+            LexicalUnit.SMALLER_EQUAL, LexicalUnit.EQUAL, LexicalUnit.GREATER, LexicalUnit.GREATER_EQUAL,
+            LexicalUnit.DIFFERENT);
 
     Parser(java.util.List<Symbol> symbols) {
         this(symbols, false);
     }
 
     Parser(java.util.List<Symbol> symbols, boolean verbose) {
+        this(new ListTokenStream(symbols), verbose);
+    }
+
+    Parser(TokenStream symbols) {
+        this(symbols, false);
+    }
+
+    Parser(TokenStream symbols, boolean verbose) {
         this.symbols = symbols;
         this.v = verbose;
-        this.l = 0;
         this.syntaxError = false;
     }
 
@@ -324,514 +357,285 @@ class Parser {
     /**
      * Function representing the variable ExprArith.
      *
-     * According to the action table, the function will execute a
-     * certain rule if the lookahead is corresponding.
-     *
-     * If the rule contains terminals, there will be a match and
-     * the lookahead will be incremented.
-     *
-     * Otherwise, the function corresponding to the variable is called.
+     * The rules [14] to [25] are followed as in a derivation, but the right recursions of
+     * <ExprArith'> and <Prod'> are loops: each operation is created as a tree with the operator
+     * at the top and the operands as children, like in the AbstractSyntaxTree, and an
+     * expression with many terms doesn't overflow the stack.
      *
-     * Each match return a leaf of the tree. Each function return
-     * a recursive tree. Those are stored as children of the tree returned
-     * in this function.
-     *
-     * @return a recursive ParseTree
+     * @return a ParseTree with the expression as only child
      */
     private ParseTree ExprArith() {
-        List<ParseTree> children = new ArrayList<>();
-
-        // [14] <ExprArith> -> <Prod> <ExprArith'>
-        if (
-                lookahead() == LexicalUnit.VARNAME ||
-                lookahead() == LexicalUnit.NUMBER ||
-                lookahead() == LexicalUnit.MINUS ||
-                lookahead() == LexicalUnit.LEFT_PARENTHESIS)
-        {
-            print(14, "<ExprArith> -> <Prod> <ExprArith'>");
-
-            children.add(Prod());
-            children.add(ExprArith_prime());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<ExprArith>"), children);
-        }
-
-        return null;
+        return expression("<ExprArith>", sum());
     }
 
     /**
-     * Function representing the variable ExprArith'.
-     *
-     * According to the action table, the function will execute a
-     * certain rule if the lookahead is corresponding.
-     *
-     * If the rule contains terminals, there will be a match and
-     * the lookahead will be incremented.
-     *
-     * Otherwise, the function corresponding to the variable is called.
+     * Function representing the variable Cond.
      *
-     * Each match return a leaf of the tree. Each function return
-     * a recursive tree. Those are stored as children of the tree returned
-     * in this function.
+     * As for ExprArith, the rules [29] to [43] are followed with loops for <Cond'> and <CondAnd'>.
      *
-     * @return a recursive ParseTree
+     * @return a ParseTree with the condition as only child
      */
-    private ParseTree ExprArith_prime() {
-        List<ParseTree> children = new ArrayList<>();
+    private ParseTree Cond() {
+        // [29] <Cond> -> <CondAnd> <Cond'>
+        if (!EXPRESSION_START.contains(lookahead()) && lookahead() != LexicalUnit.NOT)
+            return null;
+        print(29, "<Cond> -> <CondAnd> <Cond'>");
 
-        // [15] <ExprArith'> -> + <Prod> <ExprArith'>
-        if (lookahead() == LexicalUnit.PLUS) {
-            print(15, "<ExprArith'> -> + <Prod> <ExprArith'>");
+        ParseTree left = conjunction();
+        // [30] <Cond'> -> or <CondAnd> <Cond'>
+        while (lookahead() == LexicalUnit.OR) {
+            print(30, "<Cond'> -> or <CondAnd> <Cond'>");
 
-            children.add(match(LexicalUnit.PLUS));
-            children.add(Prod());
-            children.add(ExprArith_prime());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<ExprArith'>"), children);
+            ParseTree operator = match(LexicalUnit.OR);
+            left = operation(operator, left, conjunction());
         }
-        // [16] <ExprArith'> -> - <Prod> <ExprArith'>
-        else if (lookahead() == LexicalUnit.MINUS) {
-            print(16, "<ExprArith'> -> - <Prod> <ExprArith'>");
+        // [31] <Cond'> -> ε
+        if (lookahead() == LexicalUnit.THEN || lookahead() == LexicalUnit.DO)
+            print(31, "<Cond'> -> ε");
 
-            children.add(match(LexicalUnit.MINUS));
-            children.add(Prod());
-            children.add(ExprArith_prime());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<ExprArith'>"), children);
-        }
-        // [17] <ExprArith'> -> ε
-        else if (
-                lookahead() == LexicalUnit.END ||
-                lookahead() == LexicalUnit.SEMICOLON ||
-                lookahead() == LexicalUnit.THEN ||
-                lookahead() == LexicalUnit.ENDIF ||
-                lookahead() == LexicalUnit.ELSE ||
-                lookahead() == LexicalUnit.OR ||
-                lookahead() == LexicalUnit.AND ||
-                lookahead() == LexicalUnit.EQUAL ||
-                lookahead() == LexicalUnit.GREATER_EQUAL ||
-                lookahead() == LexicalUnit.GREATER ||
-                lookahead() == LexicalUnit.SMALLER_EQUAL ||
-                lookahead() == LexicalUnit.SMALLER ||
-                lookahead() == LexicalUnit.DIFFERENT ||
-                lookahead() == LexicalUnit.DO ||
-                lookahead() == LexicalUnit.ENDWHILE ||
-                lookahead() == LexicalUnit.BY ||
-                lookahead() == LexicalUnit.TO)
-        {
-            print(17, "<ExprArith'> -> ε");
+        return expression("<Cond>", left);
+    }
+
+    /**
+     * Create the node of the variable with the expression as only child.
+     *
+     * @return the node, or null if there is no expression
+     */
+    private static ParseTree expression(String variable, ParseTree expression) {
+        if (expression == null)
             return null;
-        }
 
-        return null;
+        List<ParseTree> children = new ArrayList<>(1);
+        children.add(expression);
+        return new ParseTree(new Symbol(null, variable), children);
     }
 
     /**
-     * Function representing the variable Prod.
+     * Add the operands of an operator as its children.
      *
-     * According to the action table, the function will execute a
-     * certain rule if the lookahead is corresponding.
-     *
-     * If the rule contains terminals, there will be a match and
-     * the lookahead will be incremented.
-     *
-     * Otherwise, the function corresponding to the variable is called.
-     *
-     * Each match return a leaf of the tree. Each function return
-     * a recursive tree. Those are stored as children of the tree returned
-     * in this function.
+     * @param operator leaf of the operator
+     * @param left left operand, null if there is none
+     * @param right right operand, null if there is none
+     * @return the tree of the operation
+     */
+    private static ParseTree operation(ParseTree operator, ParseTree left, ParseTree right) {
+        if (left != null)
+            operator.getChildren().add(left);
+        if (right != null)
+            operator.getChildren().add(right);
+        return operator;
+    }
+
+    /**
+     * [14] <ExprArith> -> <Prod> <ExprArith'>, then the rules [15] to [17] of <ExprArith'>
      *
-     * @return a recursive ParseTree
+     * @return the tree of the expression, null if there is none
      */
-    private ParseTree Prod() {
-        List<ParseTree> children = new ArrayList<>();
+    private ParseTree sum() {
+        if (!EXPRESSION_START.contains(lookahead()))
+            return null;
+        print(14, "<ExprArith> -> <Prod> <ExprArith'>");
 
-        // [18] <Prod> -> <Atom> <Prod'>
-        if (
-                lookahead() == LexicalUnit.VARNAME ||
-                lookahead() == LexicalUnit.NUMBER ||
-                lookahead() == LexicalUnit.MINUS ||
-                lookahead() == LexicalUnit.LEFT_PARENTHESIS)
-        {
-            print(18, "<Prod> -> <Atom> <Prod'>");
+        ParseTree left = product();
+        while (lookahead() == LexicalUnit.PLUS || lookahead() == LexicalUnit.MINUS) {
+            printOperator(lookahead());
 
-            children.add(Atom());
-            children.add(Prod_prime());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<Prod>"), children);
+            ParseTree operator = match(lookahead());
+            left = operation(operator, left, product());
         }
+        if (EXPR_ARITH_END.contains(lookahead()))
+            print(17, "<ExprArith'> -> ε");
 
-        return null;
+        return left;
     }
 
     /**
-     * Function representing the variable Prod'.
+     * [18] <Prod> -> <Atom> <Prod'>, then the rules [19] to [21] of <Prod'>
      *
-     * According to the action table, the function will execute a
-     * certain rule if the lookahead is corresponding.
-     *
-     * If the rule contains terminals, there will be a match and
-     * the lookahead will be incremented.
-     *
-     * Otherwise, the function corresponding to the variable is called.
-     *
-     * Each match return a leaf of the tree. Each function return
-     * a recursive tree. Those are stored as children of the tree returned
-     * in this function.
-     *
-     * @return a recursive ParseTree
+     * @return the tree of the product, null if there is none
      */
-    private ParseTree Prod_prime() {
-        List<ParseTree> children = new ArrayList<>();
-
-        // [19] <Prod'> -> * <Atom> <Prod'>
-        if (lookahead() == LexicalUnit.TIMES) {
-            print(19, "<Prod'> -> * <Atom> <Prod'>");
+    private ParseTree product() {
+        if (!EXPRESSION_START.contains(lookahead()))
+            return null;
+        print(18, "<Prod> -> <Atom> <Prod'>");
 
-            children.add(match(LexicalUnit.TIMES));
-            children.add(Atom());
-            children.add(Prod_prime());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<Prod'>"), children);
-        }
-        // [20] <Prod'> -> / <Atom> <Prod'>
-        else if (lookahead() == LexicalUnit.DIVIDE) {
-            print(20, "<Prod'> -> / <Atom> <Prod'>");
+        ParseTree left = atom();
+        while (lookahead() == LexicalUnit.TIMES || lookahead() == LexicalUnit.DIVIDE) {
+            printOperator(lookahead());
 
-            children.add(match(LexicalUnit.DIVIDE));
-            children.add(Atom());
-            children.add(Prod_prime());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<Prod'>"), children);
+            ParseTree operator = match(lookahead());
+            left = operation(operator, left, atom());
         }
-        // [21] <Prod'> -> ε
-        else if (
-                lookahead() == LexicalUnit.END ||
-                lookahead() == LexicalUnit.SEMICOLON ||
-                lookahead() == LexicalUnit.PLUS ||
-                lookahead() == LexicalUnit.MINUS ||
-                lookahead() == LexicalUnit.THEN ||
-                lookahead() == LexicalUnit.ENDIF ||
-                lookahead() == LexicalUnit.ELSE ||
-                lookahead() == LexicalUnit.OR ||
-                lookahead() == LexicalUnit.AND ||
-                lookahead() == LexicalUnit.EQUAL ||
-                lookahead() == LexicalUnit.GREATER_EQUAL ||
-                lookahead() == LexicalUnit.GREATER ||
-                lookahead() == LexicalUnit.SMALLER_EQUAL ||
-                lookahead() == LexicalUnit.SMALLER ||
-                lookahead() == LexicalUnit.DIFFERENT ||
-                lookahead() == LexicalUnit.DO ||
-                lookahead() == LexicalUnit.ENDWHILE ||
-                lookahead() == LexicalUnit.BY ||
-                lookahead() == LexicalUnit.TO)
-        {
+        if (PROD_END.contains(lookahead()))
             print(21, "<Prod'> -> ε");
-            return null;
-        }
 
-        return null;
+        return left;
     }
 
     /**
-     * Function representing the variable Atom.
-     *
-     * According to the action table, the function will execute a
-     * certain rule if the lookahead is corresponding.
-     *
-     * If the rule contains terminals, there will be a match and
-     * the lookahead will be incremented.
-     *
-     * Otherwise, the function corresponding to the variable is called.
-     *
-     * Each match return a leaf of the tree. Each function return
-     * a recursive tree. Those are stored as children of the tree returned
-     * in this function.
+     * Rules [22] to [25] of <Atom>. The '-' before an atom are matched in a loop, and each one
+     * has the atom which follows it as only child.
      *
-     * @return a recursive ParseTree
+     * @return the tree of the atom, null if there is none
      */
-    private ParseTree Atom() {
-        List<ParseTree> children = new ArrayList<>();
-
+    private ParseTree atom() {
+        List<ParseTree> minuses = new ArrayList<>();
         // [22] <Atom> -> - <Atom>
-        if (lookahead() == LexicalUnit.MINUS) {
+        while (lookahead() == LexicalUnit.MINUS) {
             print(22, "<Atom> -> - <Atom>");
 
-            children.add(match(LexicalUnit.MINUS));
-            children.add(Atom());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<Atom>"), children);
+            minuses.add(match(LexicalUnit.MINUS));
         }
+
+        ParseTree atom = null;
         // [23] <Atom> -> [Number]
-        else if (lookahead() == LexicalUnit.NUMBER) {
+        if (lookahead() == LexicalUnit.NUMBER) {
             print(23, "<Atom> -> [Number]");
 
-            children.add(match(LexicalUnit.NUMBER));
-            return new ParseTree(new Symbol(null, "<Atom>"), children);
+            atom = match(LexicalUnit.NUMBER);
         }
         // [24] <Atom> -> [VarName]
         else if (lookahead() == LexicalUnit.VARNAME) {
             print(24, "<Atom> -> [VarName]");
 
-            children.add(match(LexicalUnit.VARNAME));
-            return new ParseTree(new Symbol(null, "<Atom>"), children);
+            atom = match(LexicalUnit.VARNAME);
         }
         // [25] <Atom> -> ( <ExprArith> )
         else if (lookahead() == LexicalUnit.LEFT_PARENTHESIS) {
             print(25, "<Atom> -> ( <ExprArith> )");
 
+            List<ParseTree> children = new ArrayList<>();
             children.add(match(LexicalUnit.LEFT_PARENTHESIS));
             children.add(ExprArith());
             children.add(match(LexicalUnit.RIGHT_PARENTHESIS));
             while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<Atom>"), children);
+            atom = new ParseTree(new Symbol(null, "<Atom>"), children);
         }
 
-        return null;
-    }
-
-    /**
-     * Function representing the variable If.
-     *
-     * According to the action table, the function will execute a
-     * certain rule if the lookahead is corresponding.
-     *
-     * If the rule contains terminals, there will be a match and
-     * the lookahead will be incremented.
-     *
-     * Otherwise, the function corresponding to the variable is called.
-     *
-     * Each match return a leaf of the tree. Each function return
-     * a recursive tree. Those are stored as children of the tree returned
-     * in this function.
-     *
-     * @return a recursive ParseTree
-     */
-    private ParseTree If() {
-        List<ParseTree> children = new ArrayList<>();
-
-        // [26] <If> -> if <Cond> then <Code> <IfSeq>
-        if (lookahead() == LexicalUnit.IF) {
-            print(26, "<If> -> if <Cond> then <Code> <IfSeq>");
-
-            children.add(match(LexicalUnit.IF));
-            children.add(Cond());
-            children.add(match(LexicalUnit.THEN));
-            children.add(Code());
-            children.add(IfSeq());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<If>"), children);
+        for (int i = minuses.size() - 1; i >= 0; i--) {
+            atom = operation(minuses.get(i), atom, null);
         }
-
-        return null;
+        return atom;
     }
 
     /**
-     * Function representing the variable IfSeq.
-     *
-     * According to the action table, the function will execute a
-     * certain rule if the lookahead is corresponding.
+     * [32] <CondAnd> -> <SimpleCond> <CondAnd'>, then the rules [33] and [34] of <CondAnd'>
      *
-     * If the rule contains terminals, there will be a match and
-     * the lookahead will be incremented.
-     *
-     * Otherwise, the function corresponding to the variable is called.
-     *
-     * Each match return a leaf of the tree. Each function return
-     * a recursive tree. Those are stored as children of the tree returned
-     * in this function.
-     *
-     * @return a recursive ParseTree
+     * @return the tree of the conjunction, null if there is none
      */
-    private ParseTree IfSeq() {
-        List<ParseTree> children = new ArrayList<>();
+    private ParseTree conjunction() {
+        if (!EXPRESSION_START.contains(lookahead()) && lookahead() != LexicalUnit.NOT)
+            return null;
+        print(32, "<CondAnd> -> <SimpleCond> <CondAnd'>");
 
-        // [27] <IfSeq> -> endif
-        if (lookahead() == LexicalUnit.ENDIF) {
-            print(27, "<IfSeq> -> endif");
+        ParseTree left = simpleCondition();
+        while (lookahead() == LexicalUnit.AND) {
+            print(33, "<CondAnd'> -> and <SimpleCond> <CondAnd'>");
 
-            children.add(match(LexicalUnit.ENDIF));
-            return new ParseTree(new Symbol(null, "<IfSeq>"), children);
-        }
-        // [28] <IfSeq> -> else <Code> endif
-        else if (lookahead() == LexicalUnit.ELSE) {
-            print(28, "<IfSeq> -> else <Code> endif");
-
-            children.add(match(LexicalUnit.ELSE));
-            children.add(Code());
-            children.add(match(LexicalUnit.ENDIF));
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<IfSeq>"), children);
+            ParseTree operator = match(LexicalUnit.AND);
+            left = operation(operator, left, simpleCondition());
         }
+        if (lookahead() == LexicalUnit.THEN || lookahead() == LexicalUnit.DO || lookahead() == LexicalUnit.OR)
+            print(34, "<CondAnd'> -> ε");
 
-        return null;
+        return left;
     }
 
     /**
-     * Function representing the variable Cond.
-     *
-     * According to the action table, the function will execute a
-     * certain rule if the lookahead is corresponding.
+     * Rules [35] to [43] of <SimpleCond> and <SimpleCond'>. The 'not' are matched in a loop,
+     * and each one has the condition which follows it as only child.
      *
-     * If the rule contains terminals, there will be a match and
-     * the lookahead will be incremented.
-     *
-     * Otherwise, the function corresponding to the variable is called.
-     *
-     * Each match return a leaf of the tree. Each function return
-     * a recursive tree. Those are stored as children of the tree returned
-     * in this function.
-     *
-     * @return a recursive ParseTree
+     * @return the tree of the condition, null if there is none
      */
-    private ParseTree Cond() {
-        List<ParseTree> children = new ArrayList<>();
-
-        // [29] <Cond> -> <CondAnd> <Cond'>
-        if (
-                lookahead() == LexicalUnit.VARNAME ||
-                lookahead() == LexicalUnit.NUMBER ||
-                lookahead() == LexicalUnit.MINUS ||
-                lookahead() == LexicalUnit.LEFT_PARENTHESIS ||
-                lookahead() == LexicalUnit.NOT)
-        {
-            print(29, "<Cond> -> <CondAnd> <Cond'>");
+    private ParseTree simpleCondition() {
+        List<ParseTree> nots = new ArrayList<>();
+        // [36] <SimpleCond> -> not <SimpleCond>
+        while (lookahead() == LexicalUnit.NOT) {
+            print(36, "<SimpleCond> -> not <SimpleCond>");
 
-            children.add(CondAnd());
-            children.add(Cond_prime());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<Cond>"), children);
+            nots.add(match(LexicalUnit.NOT));
         }
 
-        return null;
-    }
-
-    /**
-     * Function representing the variable Cond'.
-     *
-     * According to the action table, the function will execute a
-     * certain rule if the lookahead is corresponding.
-     *
-     * If the rule contains terminals, there will be a match and
-     * the lookahead will be incremented.
-     *
-     * Otherwise, the function corresponding to the variable is called.
-     *
-     * Each match return a leaf of the tree. Each function return
-     * a recursive tree. Those are stored as children of the tree returned
-     * in this function.
-     *
-     * @return a recursive ParseTree
-     */
-    private ParseTree Cond_prime() {
-        List<ParseTree> children = new ArrayList<>();
+        ParseTree condition = null;
+        // [35] <SimpleCond> -> <ExprArith> <SimpleCond'>
+        if (lookahead() == LexicalUnit.VARNAME || lookahead() == LexicalUnit.NUMBER || lookahead() == LexicalUnit.MINUS) {
+            print(35, "<SimpleCond> -> <ExprArith> <SimpleCond'>");
 
-        // [30] <Cond'> -> or <CondAnd> <Cond'>
-        if (lookahead() == LexicalUnit.OR) {
-            print(30, "<Cond'> -> or <CondAnd> <Cond'>");
+            condition = sum();
+            // [38] to [43] <SimpleCond'> -> comparator <ExprArith>
+            if (COMPARATORS.contains(lookahead())) {
+                printOperator(lookahead());
 
-            children.add(match(LexicalUnit.OR));
-            children.add(CondAnd());
-            children.add(Cond_prime());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<Cond'>"), children);
-        }
-        // [31] <Cond'> -> ε
-        else if (
-                lookahead() == LexicalUnit.THEN ||
-                lookahead() == LexicalUnit.DO)
-        {
-            print(31, "<Cond'> -> ε");
-            return null;
+                ParseTree operator = match(lookahead());
+                condition = operation(operator, condition, sum());
+            }
         }
+        // [37] <SimpleCond> -> (<Cond>)
+        else if (lookahead() == LexicalUnit.LEFT_PARENTHESIS) {
+            print(37, "<SimpleCond> -> (<Cond>)");
 
-        return null;
-    }
-
-    /**
-     * Function representing the variable CondAnd.
-     *
-     * According to the action table, the function will execute a
-     * certain rule if the lookahead is corresponding.
-     *
-     * If the rule contains terminals, there will be a match and
-     * the lookahead will be incremented.
-     *
-     * Otherwise, the function corresponding to the variable is called.
-     *
-     * Each match return a leaf of the tree. Each function return
-     * a recursive tree. Those are stored as children of the tree returned
-     * in this function.
-     *
-     * @return a recursive ParseTree
-     */
-    private ParseTree CondAnd() {
-        List<ParseTree> children = new ArrayList<>();
-
-        // [32] <CondAnd> -> <SimpleCond> <CondAnd'>
-        if (
-                lookahead() == LexicalUnit.VARNAME ||
-                lookahead() == LexicalUnit.NUMBER ||
-                lookahead() == LexicalUnit.MINUS ||
-                lookahead() == LexicalUnit.LEFT_PARENTHESIS ||
-                lookahead() == LexicalUnit.NOT)
-        {
-            print(32, "<CondAnd> -> <SimpleCond> <CondAnd'>");
-
-            children.add(SimpleCond());
-            children.add(CondAnd_prime());
+            List<ParseTree> children = new ArrayList<>();
+            children.add(match(LexicalUnit.LEFT_PARENTHESIS));
+            children.add(Cond());
+            children.add(match(LexicalUnit.RIGHT_PARENTHESIS));
             while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<CondAnd>"), children);
+            condition = new ParseTree(new Symbol(null, "<SimpleCond>"), children);
         }
 
-        return null;
+        for (int i = nots.size() - 1; i >= 0; i--) {
+            condition = operation(nots.get(i), condition, null);
+        }
+        return condition;
     }
 
     /**
-     * Function representing the variable CondAnd'.
-     *
-     * According to the action table, the function will execute a
-     * certain rule if the lookahead is corresponding.
+     * Display the rule introducing a binary operator.
      *
-     * If the rule contains terminals, there will be a match and
-     * the lookahead will be incremented.
-     *
-     * Otherwise, the function corresponding to the variable is called.
-     *
-     * Each match return a leaf of the tree. Each function return
-     * a recursive tree. Those are stored as children of the tree returned
-     * in this function.
-     *
-     * @return a recursive ParseTree
+     * @param unit lexical unit of the operator
      */
-    private ParseTree CondAnd_prime() {
-        List<ParseTree> children = new ArrayList<>();
-
-        // [33] <CondAnd'> -> and <SimpleCond> <CondAnd'>
-        if (lookahead() == LexicalUnit.AND) {
-            print(33, "<CondAnd'> -> and <SimpleCond> <CondAnd'>");
-
-            children.add(match(LexicalUnit.AND));
-            children.add(SimpleCond());
-            children.add(CondAnd_prime());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<CondAnd'>"), children);
-        }
-        // [34] <CondAnd'> -> ε
-        else if (
-                lookahead() == LexicalUnit.THEN ||
-                lookahead() == LexicalUnit.DO ||
-                lookahead() == LexicalUnit.OR)
-        {
-            print(34, "<CondAnd'> -> ε");
-            return null;
+    private void printOperator(LexicalUnit unit) {
+        switch (unit) {
+            case PLUS:
+                print(15, "<ExprArith'> -> + <Prod> <ExprArith'>");
+                break;
+            case MINUS:
+                print(16, "<ExprArith'> -> - <Prod> <ExprArith'>");
+                break;
+            case TIMES:
+                print(19, "<Prod'> -> * <Atom> <Prod'>");
+                break;
+            case DIVIDE:
+                print(20, "<Prod'> -> / <Atom> <Prod'>");
+                break;
+            case OR:
+                print(30, "<Cond'> -> or <CondAnd> <Cond'>");
+                break;
+            case AND:
+                print(33, "<CondAnd'> -> and <SimpleCond> <CondAnd'>");
+                break;
+            case SMALLER:
+                print(38, "<SimpleCond'> -> < <ExprArith>");
+                break;
+            case SMALLER_EQUAL:
+                print(39, "<SimpleCond'> -> <= <ExprArith>");
+                break;
+            case EQUAL:
+                print(40, "<SimpleCond'> -> = <ExprArith>");
+                break;
+            case GREATER:
+                print(41, "<SimpleCond'> -> > <ExprArith>");
+                break;
+            case GREATER_EQUAL:
+                print(42, "<SimpleCond'> -> >= <ExprArith>");
+                break;
+            case DIFFERENT:
+                print(43, "<SimpleCond'> -> /= <ExprArith>");
+                break;
         }
-
-        return null;
     }
 
     /**
-     * Function representing the variable SimpleCond.
+     * Function representing the variable If.
      *
      * According to the action table, the function will execute a
      * certain rule if the lookahead is corresponding.
@@ -847,47 +651,27 @@ class Parser {
      *
      * @return a recursive ParseTree
      */
-    private ParseTree SimpleCond() {
+    private ParseTree If() {
         List<ParseTree> children = new ArrayList<>();
 
-        // [35] <SimpleCond> -> <ExprArith> <SimpleCond'>
-        if (
-                lookahead() == LexicalUnit.VARNAME ||
-                lookahead() == LexicalUnit.NUMBER ||
-                lookahead() == LexicalUnit.MINUS)
-        {
-            print(35, "<SimpleCond> -> <ExprArith> <SimpleCond'>");
-
-            children.add(ExprArith());
-            children.add(SimpleCond_prime());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<SimpleCond>"), children);
-        }
-        // [36] <SimpleCond> -> not <SimpleCond>
-        else if (lookahead() == LexicalUnit.NOT) {
-            print(36, "<SimpleCond> -> not <SimpleCond>");
-
-            children.add(match(LexicalUnit.NOT));
-            children.add(SimpleCond());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<SimpleCond>"), children);
-        }
-        // [37] <SimpleCond> -> (<Cond>)
-        else if (lookahead() == LexicalUnit.LEFT_PARENTHESIS) {
-            print(37, "<SimpleCond> -> (<Cond>)");
+        // [26] <If> -> if <Cond> then <Code> <IfSeq>
+        if (lookahead() == LexicalUnit.IF) {
+            print(26, "<If> -> if <Cond> then <Code> <IfSeq>");
 
-            children.add(match(LexicalUnit.LEFT_PARENTHESIS));
+            children.add(match(LexicalUnit.IF));
             children.add(Cond());
-            children.add(match(LexicalUnit.RIGHT_PARENTHESIS));
+            children.add(match(LexicalUnit.THEN));
+            children.add(Code());
+            children.add(IfSeq());
             while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<SimpleCond>"), children);
+            return new ParseTree(new Symbol(null, "<If>"), children);
         }
 
         return null;
     }
 
     /**
-     * Function representing the variable SimpleCond'.
+     * Function representing the variable IfSeq.
      *
      * According to the action table, the function will execute a
      * certain rule if the lookahead is corresponding.
@@ -903,62 +687,25 @@ class Parser {
      *
      * @return a recursive ParseTree
      */
-    private ParseTree SimpleCond_prime() {
+    private ParseTree IfSeq() {
         List<ParseTree> children = new ArrayList<>();
 
-        // [38] <SimpleCond'> -> < <ExprArith>
-        if (lookahead() == LexicalUnit.SMALLER) {
-            print(38, "<SimpleCond'> -> < <ExprArith>");
-
-            children.add(match(LexicalUnit.SMALLER));
-            children.add(ExprArith());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<SimpleCond'>"), children);
-        }
-        // [39] <SimpleCond'> -> <= <ExprArith>
-        else if (lookahead() == LexicalUnit.SMALLER_EQUAL) {
-            print(39, "<SimpleCond'> -> <= <ExprArith>");
-
-            children.add(match(LexicalUnit.SMALLER_EQUAL));
-            children.add(ExprArith());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<SimpleCond'>"), children);
-        }
-        // [40] <SimpleCond'> -> = <ExprArith>
-        else if (lookahead() == LexicalUnit.EQUAL) {
-            print(40, "<SimpleCond'> -> = <ExprArith>");
-
-            children.add(match(LexicalUnit.EQUAL));
-            children.add(ExprArith());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<SimpleCond'>"), children);
-        }
-        // [41] <SimpleCond'> -> > <ExprArith>
-        else if (lookahead() == LexicalUnit.GREATER) {
-            print(41, "<SimpleCond'> -> > <ExprArith>");
-
-            children.add(match(LexicalUnit.GREATER));
-            children.add(ExprArith());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<SimpleCond'>"), children);
-        }
-        // [42] <SimpleCond'> -> >= <ExprArith>
-        else if (lookahead() == LexicalUnit.GREATER_EQUAL) {
-            print(42, "<SimpleCond'> -> >= <ExprArith>");
+        // [27] <IfSeq> -> endif
+        if (lookahead() == LexicalUnit.ENDIF) {
+            print(27, "<IfSeq> -> endif");
 
-            children.add(match(LexicalUnit.GREATER_EQUAL));
-            children.add(ExprArith());
-            while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<SimpleCond'>"), children);
+            children.add(match(LexicalUnit.ENDIF));
+            return new ParseTree(new Symbol(null, "<IfSeq>"), children);
         }
-        // [43] <SimpleCond'> -> /= <ExprArith>
-        else if (lookahead() == LexicalUnit.DIFFERENT) {
-            print(43, "<SimpleCond'> -> >= <ExprArith>");
+        // [28] <IfSeq> -> else <Code> endif
+        else if (lookahead() == LexicalUnit.ELSE) {
+            print(28, "<IfSeq> -> else <Code> endif");
 
-            children.add(match(LexicalUnit.DIFFERENT));
-            children.add(ExprArith());
+            children.add(match(LexicalUnit.ELSE));
+            children.add(Code());
+            children.add(match(LexicalUnit.ENDIF));
             while (children.remove(null));
-            return new ParseTree(new Symbol(null, "<SimpleCond'>"), children);
+            return new ParseTree(new Symbol(null, "<IfSeq>"), children);
         }
 
         return null;
@@ -1120,12 +867,11 @@ class Parser {
      * @return a leaf of a ParseTree with the matched terminal
      */
     private ParseTree match(LexicalUnit type) {
-        Symbol terminal = symbols.get(l);
-        if (terminal.getType() == type) {
+        if (symbols.peekType() == type) {
+            Symbol terminal = symbols.next();
             if (v) {
                 System.out.println("Match : " + terminal);
             }
-            l++;
 
             return new ParseTree(terminal);
         }
@@ -1133,7 +879,7 @@ class Parser {
             if (!v) {
                 System.out.println();
             }
-            System.out.println("Syntax error at line " + terminal.getLine());
+            System.out.println("Syntax error at line " + symbols.peek().getLine());
             syntaxError = true;
         }
 
@@ -1142,10 +888,10 @@ class Parser {
 
 
     /**
-     * @return return the symbol pointed by the lookahead 'l'
+     * @return return the type of the next symbol of the input
      */
     private LexicalUnit lookahead() {
-        return symbols.get(l).getType();
+        return symbols.peekType();
     }
 
     /**
@@ -0,0 +1,346 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pass on the IR of a function putting it in SSA form: the variables are kept in registers
+ * instead of memory, so their allocas, loads and stores are removed.
+ * <br>
+ * The unreachable blocks are removed and the dominance frontiers of the other ones are computed
+ * from their dominator tree. A phi is placed in the iterated dominance frontier of the blocks
+ * assigning a variable, if the variable is read in some block before being assigned in it.
+ * The blocks are then walked down the dominator tree keeping the current value of each
+ * variable: a load is replaced by that value and a store changes it. Finally the phis whose
+ * operands are all the same value, and the phis used only by other unused phis, are removed.
+ */
+final class SsaBuilder {
+    private final IR.Function function;
+    private final ControlFlowGraph graph;
+    /**
+     * Reachable blocks of the graph, in reverse post-order
+     */
+    private final List<IR.Block> blocks;
+    /**
+     * Index of each variable, by its alloca
+     */
+    private final Map<IR.Instruction, Integer> variables;
+    /**
+     * Variable of each phi placed
+     */
+    private final Map<IR.Instruction, Integer> phiVariables;
+    /**
+     * Value replacing each load and each removed phi
+     */
+    private final Map<IR.Value, IR.Value> replacements;
+    private final IR.Undefined undefined;
+
+    private SsaBuilder(IR.Function function) {
+        this.function = function;
+        graph = new ControlFlowGraph(function);
+        blocks = graph.blocks;
+        // The unreachable blocks can't be given a dominator
+        function.blocks.removeIf(block -> graph.index(block) == -1);
+        variables = new IdentityHashMap<>();
+        phiVariables = new IdentityHashMap<>();
+        replacements = new IdentityHashMap<>();
+        undefined = new IR.Undefined(IR.Type.I32);
+    }
+
+    /**
+     * Put a function in SSA form, in place
+     *
+     * @param function the function, with its variables in memory
+     * @return a description of the instructions removed, to be displayed
+     */
+    static String build(IR.Function function) {
+        int before = size(function);
+        SsaBuilder builder = new SsaBuilder(function);
+        builder.placePhis(builder.frontiers());
+        builder.rename();
+        int phis = builder.removePhis();
+        return "SSA construction: " + before + " instructions before, " + size(function) + " after, with "
+                + phis + " phi nodes";
+    }
+
+    /**
+     * @return the dominance frontier of each block
+     */
+    private List<List<Integer>> frontiers() {
+        List<List<Integer>> frontiers = new ArrayList<>(blocks.size());
+        for (int b = 0; b < blocks.size(); b++) {
+            frontiers.add(new ArrayList<>(0));
+        }
+        // Last block added to the frontier of each block, so that it is added once
+        int[] last = new int[blocks.size()];
+        Arrays.fill(last, -1);
+        for (int b = 0; b < blocks.size(); b++) {
+            if (graph.predecessors(b).size() < 2) {
+                continue;
+            }
+            for (int runner : graph.predecessors(b)) {
+                while (runner != graph.dominator(b) && last[runner] != b) {
+                    frontiers.get(runner).add(b);
+                    last[runner] = b;
+                    runner = graph.dominator(runner);
+                }
+            }
+        }
+        return frontiers;
+    }
+
+    /**
+     * Place a phi at the start of the blocks of the iterated dominance frontier of the
+     * assignments of each variable read before being assigned in a block.
+     */
+    private void placePhis(List<List<Integer>> frontiers) {
+        // Blocks assigning each variable, and if it is read in a block before being assigned in it
+        List<List<Integer>> assignments = new ArrayList<>();
+        List<Boolean> global = new ArrayList<>();
+        for (int b = 0; b < blocks.size(); b++) {
+            for (IR.Instruction instruction : blocks.get(b).instructions) {
+                IR.Instruction alloca = pointer(instruction);
+                if (alloca == null) {
+                    continue;
+                }
+                Integer variable = variables.get(alloca);
+                if (variable == null) {
+                    variable = variables.size();
+                    variables.put(alloca, variable);
+                    assignments.add(new ArrayList<>(1));
+                    global.add(false);
+                }
+                List<Integer> assigned = assignments.get(variable);
+                boolean assignedHere = !assigned.isEmpty() && assigned.get(assigned.size() - 1) == b;
+                if (instruction.opcode == IR.Opcode.STORE && !assignedHere) {
+                    assigned.add(b);
+                }
+                else if (instruction.opcode == IR.Opcode.LOAD && !assignedHere) {
+                    global.set(variable, true);
+                }
+            }
+        }
+
+        // Variable + 1 of the last phi placed in each block and of the last time it was in the work list
+        int[] placed = new int[blocks.size()];
+        int[] listed = new int[blocks.size()];
+        Deque<Integer> work = new ArrayDeque<>();
+        for (int variable = 0; variable < assignments.size(); variable++) {
+            if (!global.get(variable)) {
+                continue;
+            }
+            for (int b : assignments.get(variable)) {
+                listed[b] = variable + 1;
+                work.push(b);
+            }
+            while (!work.isEmpty()) {
+                for (int frontier : frontiers.get(work.pop())) {
+                    if (placed[frontier] == variable + 1) {
+                        continue;
+                    }
+                    IR.Instruction phi = IR.phi(IR.Type.I32);
+                    blocks.get(frontier).instructions.add(0, phi);
+                    phiVariables.put(phi, variable);
+                    placed[frontier] = variable + 1;
+                    if (listed[frontier] != variable + 1) {
+                        listed[frontier] = variable + 1;
+                        work.push(frontier);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Walk the dominator tree replacing the loads by the current values of the variables,
+     * removing the memory instructions and giving their incoming values to the phis.
+     */
+    private void rename() {
+        List<List<Integer>> children = new ArrayList<>(blocks.size());
+        for (int b = 0; b < blocks.size(); b++) {
+            children.add(new ArrayList<>(2));
+        }
+        for (int b = 1; b < blocks.size(); b++) {
+            children.get(graph.dominator(b)).add(b);
+        }
+
+        IR.Value[] current = new IR.Value[variables.size()];
+        Arrays.fill(current, undefined);
+        // Previous values of the variables changed by the blocks of the path, to restore them
+        Deque<Integer> changedVariables = new ArrayDeque<>();
+        Deque<IR.Value> previousValues = new ArrayDeque<>();
+        // A block is pushed twice: its index to enter it, then its bitwise complement to leave it
+        Deque<Integer> walk = new ArrayDeque<>();
+        Deque<Integer> changes = new ArrayDeque<>();
+        walk.push(0);
+        while (!walk.isEmpty()) {
+            int b = walk.pop();
+            if (b < 0) {
+                for (int count = changes.pop(); count > 0; count--) {
+                    current[changedVariables.pop()] = previousValues.pop();
+                }
+                continue;
+            }
+
+            int count = 0;
+            IR.Block block = blocks.get(b);
+            List<IR.Instruction> kept = new ArrayList<>(block.instructions.size());
+            for (IR.Instruction instruction : block.instructions) {
+                Integer variable = phiVariables.get(instruction);
+                IR.Instruction alloca = pointer(instruction);
+                if (variable == null && alloca != null) {
+                    variable = variables.get(alloca);
+                }
+                if (variable == null) {
+                    if (instruction.opcode != IR.Opcode.ALLOCA || !variables.containsKey(instruction)) {
+                        replaceOperands(instruction);
+                        kept.add(instruction);
+                    }
+                    continue;
+                }
+
+                if (instruction.opcode == IR.Opcode.LOAD) {
+                    replacements.put(instruction, current[variable]);
+                    continue;
+                }
+                changedVariables.push(variable);
+                previousValues.push(current[variable]);
+                count++;
+                if (instruction.opcode == IR.Opcode.PHI) {
+                    current[variable] = instruction;
+                    kept.add(instruction);
+                }
+                else {
+                    current[variable] = replacement(instruction.operands.get(0));
+                }
+            }
+            block.instructions.clear();
+            block.instructions.addAll(kept);
+
+            for (IR.Block successor : ControlFlowGraph.successors(block)) {
+                for (IR.Instruction instruction : successor.instructions) {
+                    if (instruction.opcode != IR.Opcode.PHI) {
+                        break;
+                    }
+                    instruction.addIncoming(current[phiVariables.get(instruction)], block);
+                }
+            }
+
+            changes.push(count);
+            walk.push(~b);
+            for (int child : children.get(b)) {
+                walk.push(child);
+            }
+        }
+    }
+
+    /**
+     * Remove the phis whose incoming values are all the same value (or the phi itself),
+     * then the phis which aren't used by an instruction other than a phi.
+     *
+     * @return the number of phis kept
+     */
+    private int removePhis() {
+        List<IR.Instruction> phis = new ArrayList<>(phiVariables.keySet());
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            List<IR.Instruction> kept = new ArrayList<>(phis.size());
+            for (IR.Instruction phi : phis) {
+                replaceOperands(phi);
+                IR.Value same = null;
+                boolean trivial = true;
+                for (IR.Value operand : phi.operands) {
+                    if (operand == phi || operand == same) {
+                        continue;
+                    }
+                    if (same != null) {
+                        trivial = false;
+                        break;
+                    }
+                    same = operand;
+                }
+                if (trivial) {
+                    replacements.put(phi, same == null ? undefined : same);
+                    changed = true;
+                }
+                else {
+                    kept.add(phi);
+                }
+            }
+            phis = kept;
+        }
+
+        // The phis used by the other instructions, then the phis they use
+        Map<IR.Instruction, Boolean> used = new IdentityHashMap<>();
+        Deque<IR.Instruction> work = new ArrayDeque<>();
+        for (IR.Block block : function.blocks) {
+            for (IR.Instruction instruction : block.instructions) {
+                replaceOperands(instruction);
+                if (instruction.opcode != IR.Opcode.PHI) {
+                    markPhis(instruction, used, work);
+                }
+            }
+        }
+        while (!work.isEmpty()) {
+            markPhis(work.pop(), used, work);
+        }
+
+        for (IR.Block block : function.blocks) {
+            block.instructions.removeIf(instruction -> instruction.opcode == IR.Opcode.PHI && !used.containsKey(instruction));
+        }
+        return used.size();
+    }
+
+    private static void markPhis(IR.Instruction instruction, Map<IR.Instruction, Boolean> used, Deque<IR.Instruction> work) {
+        for (IR.Value operand : instruction.operands) {
+            if (operand instanceof IR.Instruction && ((IR.Instruction) operand).opcode == IR.Opcode.PHI
+                    && used.put((IR.Instruction) operand, true) == null) {
+                work.push((IR.Instruction) operand);
+            }
+        }
+    }
+
+    private void replaceOperands(IR.Instruction instruction) {
+        List<IR.Value> operands = instruction.operands;
+        for (int i = 0; i < operands.size(); i++) {
+            operands.set(i, replacement(operands.get(i)));
+        }
+    }
+
+    /**
+     * @return the value replacing a value, following the removed phis
+     */
+    private IR.Value replacement(IR.Value value) {
+        IR.Value replacement = replacements.get(value);
+        while (replacement != null) {
+            value = replacement;
+            replacement = replacements.get(value);
+        }
+        return value;
+    }
+
+    /**
+     * @return the alloca of the variable read or written by an instruction, null if it isn't a load or a store
+     */
+    private static IR.Instruction pointer(IR.Instruction instruction) {
+        if (instruction.opcode == IR.Opcode.LOAD) {
+            return (IR.Instruction) instruction.operands.get(0);
+        }
+        if (instruction.opcode == IR.Opcode.STORE) {
+            return (IR.Instruction) instruction.operands.get(1);
+        }
+        return null;
+    }
+
+    private static int size(IR.Function function) {
+        int size = 0;
+        for (IR.Block block : function.blocks) {
+            size += block.instructions.size();
+        }
+        return size;
+    }
+}
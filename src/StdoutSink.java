@@ -0,0 +1,36 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sink writing the code on the standard output.
+ * The lines are buffered and the standard output is flushed but not closed
+ * when the sink is closed.
+ */
+public class StdoutSink implements OutputSink {
+    /**
+     * Writer on the standard output
+     */
+    private final BufferedWriter writer;
+
+    public StdoutSink() {
+        writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void write(String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+}
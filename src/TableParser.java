@@ -0,0 +1,495 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A table-driven LL(1) parser for the compiler, producing the same ParseTree as the Parser:
+ * the operations are trees with the operator at the top and the operands as children.
+ * <br>
+ * Instead of one recursive function per variable, the rules of the grammar are data and the
+ * action table (variable x lexical unit -> rule) is generated from them. The parsing uses an
+ * explicit stack so that long or deeply nested programs can't overflow the Java stack.
+ * <br>
+ * The stack contains the terminals to be matched, the variables to be expanded and, for each
+ * applied rule, the rule itself which builds the tree of the variable once all the symbols of
+ * the rule are done. The trees built are kept on a second stack until their parent is built.
+ */
+class TableParser {
+    /**
+     * Variables of the grammar, with the label of their node in the ParseTree
+     */
+    enum NonTerminal {
+        PROGRAM("<Program>"),
+        CODE("<Code>"),
+        INST_LIST("<InstList>"),
+        NEXT_INST("<NextInst>"),
+        INSTRUCTION("<Instruction>"),
+        ASSIGN("<Assign>"),
+        EXPR_ARITH("<ExprArith>"),
+        EXPR_ARITH_PRIME("<ExprArith'>"),
+        PROD("<Prod>"),
+        PROD_PRIME("<Prod'>"),
+        ATOM("<Atom>"),
+        IF("<If>"),
+        IF_SEQ("<IfSeq>"),
+        COND("<Cond>"),
+        COND_PRIME("<Cond'>"),
+        COND_AND("<CondAnd>"),
+        COND_AND_PRIME("<CondAnd'>"),
+        SIMPLE_COND("<SimpleCond>"),
+        SIMPLE_COND_PRIME("<SimpleCond'>"),
+        WHILE("<While>"),
+        FOR("<For>"),
+        PRINT("<Print>"),
+        READ("<Read>");
+
+        private final String label;
+
+        NonTerminal(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Rule of the grammar
+     */
+    private static class Rule {
+        /**
+         * Number of the rule
+         */
+        final int number;
+        /**
+         * Variable on the left side
+         */
+        final NonTerminal variable;
+        /**
+         * Description of the rule for the verbose mode
+         */
+        final String description;
+        /**
+         * True if the missing children (failed matches) are kept as null in the node,
+         * like some functions of the Parser do
+         */
+        final boolean keepNulls;
+        /**
+         * Symbols on the right side, LexicalUnit for the terminals and NonTerminal for the variables
+         */
+        final Object[] symbols;
+        /**
+         * Lookaheads for which the rule is applied
+         */
+        final LexicalUnit[] lookaheads;
+
+        Rule(int number, NonTerminal variable, String description, boolean keepNulls,
+             Object[] symbols, LexicalUnit[] lookaheads) {
+            this.number = number;
+            this.variable = variable;
+            this.description = description;
+            this.keepNulls = keepNulls;
+            this.symbols = symbols;
+            this.lookaheads = lookaheads;
+        }
+    }
+
+    /**
+     * Rules of the grammar, numbered as in the Parser
+     */
+    private static final Rule[] RULES = {
+            new Rule(1, NonTerminal.PROGRAM, "<Program> -> begin <Code> end", false,
+                    new Object[]{LexicalUnit.BEG, NonTerminal.CODE, LexicalUnit.END},
+                    new LexicalUnit[]{LexicalUnit.BEG}),
+            new Rule(2, NonTerminal.CODE, "<Code> -> ε", false,
+                    new Object[]{},
+                    new LexicalUnit[]{LexicalUnit.END, LexicalUnit.ENDIF, LexicalUnit.ELSE, LexicalUnit.ENDWHILE}),
+            new Rule(3, NonTerminal.CODE, "<Code> -> <InstList>", false,
+                    new Object[]{NonTerminal.INST_LIST},
+                    new LexicalUnit[]{LexicalUnit.VARNAME, LexicalUnit.IF, LexicalUnit.WHILE, LexicalUnit.FOR, LexicalUnit.PRINT, LexicalUnit.READ}),
+            new Rule(4, NonTerminal.INST_LIST, "<InstList> -> <Instruction> <NextInst>", false,
+                    new Object[]{NonTerminal.INSTRUCTION, NonTerminal.NEXT_INST},
+                    new LexicalUnit[]{LexicalUnit.VARNAME, LexicalUnit.IF, LexicalUnit.WHILE, LexicalUnit.FOR, LexicalUnit.PRINT, LexicalUnit.READ}),
+            new Rule(5, NonTerminal.NEXT_INST, "<NextInst> -> ε", false,
+                    new Object[]{},
+                    new LexicalUnit[]{LexicalUnit.END, LexicalUnit.ENDIF, LexicalUnit.ELSE, LexicalUnit.ENDWHILE}),
+            new Rule(6, NonTerminal.NEXT_INST, "<NextInst> -> ; <InstList>", false,
+                    new Object[]{LexicalUnit.SEMICOLON, NonTerminal.INST_LIST},
+                    new LexicalUnit[]{LexicalUnit.SEMICOLON}),
+            new Rule(7, NonTerminal.INSTRUCTION, "<Instruction> -> <Assign>", false,
+                    new Object[]{NonTerminal.ASSIGN},
+                    new LexicalUnit[]{LexicalUnit.VARNAME}),
+            new Rule(8, NonTerminal.INSTRUCTION, "<Instruction> -> <If>", false,
+                    new Object[]{NonTerminal.IF},
+                    new LexicalUnit[]{LexicalUnit.IF}),
+            new Rule(9, NonTerminal.INSTRUCTION, "<Instruction> -> <While>", false,
+                    new Object[]{NonTerminal.WHILE},
+                    new LexicalUnit[]{LexicalUnit.WHILE}),
+            new Rule(10, NonTerminal.INSTRUCTION, "<Instruction> -> <For>", false,
+                    new Object[]{NonTerminal.FOR},
+                    new LexicalUnit[]{LexicalUnit.FOR}),
+            new Rule(11, NonTerminal.INSTRUCTION, "<Instruction> -> <Print>", false,
+                    new Object[]{NonTerminal.PRINT},
+                    new LexicalUnit[]{LexicalUnit.PRINT}),
+            new Rule(12, NonTerminal.INSTRUCTION, "<Instruction> -> <Read>", false,
+                    new Object[]{NonTerminal.READ},
+                    new LexicalUnit[]{LexicalUnit.READ}),
+            new Rule(13, NonTerminal.ASSIGN, "<Assign> -> [VarName] := <ExprArith>", false,
+                    new Object[]{LexicalUnit.VARNAME, LexicalUnit.ASSIGN, NonTerminal.EXPR_ARITH},
+                    new LexicalUnit[]{LexicalUnit.VARNAME}),
+            new Rule(14, NonTerminal.EXPR_ARITH, "<ExprArith> -> <Prod> <ExprArith'>", false,
+                    new Object[]{NonTerminal.PROD, NonTerminal.EXPR_ARITH_PRIME},
+                    new LexicalUnit[]{LexicalUnit.VARNAME, LexicalUnit.NUMBER, LexicalUnit.MINUS, LexicalUnit.LEFT_PARENTHESIS}),
+            new Rule(15, NonTerminal.EXPR_ARITH_PRIME, "<ExprArith'> -> + <Prod> <ExprArith'>", false,
+                    new Object[]{LexicalUnit.PLUS, NonTerminal.PROD, NonTerminal.EXPR_ARITH_PRIME},
+                    new LexicalUnit[]{LexicalUnit.PLUS}),
+            new Rule(16, NonTerminal.EXPR_ARITH_PRIME, "<ExprArith'> -> - <Prod> <ExprArith'>", false,
+                    new Object[]{LexicalUnit.MINUS, NonTerminal.PROD, NonTerminal.EXPR_ARITH_PRIME},
+                    new LexicalUnit[]{LexicalUnit.MINUS}),
+            new Rule(17, NonTerminal.EXPR_ARITH_PRIME, "<ExprArith'> -> ε", false,
+                    new Object[]{},
+                    new LexicalUnit[]{LexicalUnit.END, LexicalUnit.SEMICOLON, LexicalUnit.THEN, LexicalUnit.ENDIF, LexicalUnit.ELSE, LexicalUnit.OR, LexicalUnit.AND, LexicalUnit.EQUAL, LexicalUnit.GREATER_EQUAL, LexicalUnit.GREATER, LexicalUnit.SMALLER_EQUAL, LexicalUnit.SMALLER, LexicalUnit.DIFFERENT, LexicalUnit.DO, LexicalUnit.ENDWHILE, LexicalUnit.BY, LexicalUnit.TO}),
+            new Rule(18, NonTerminal.PROD, "<Prod> -> <Atom> <Prod'>", false,
+                    new Object[]{NonTerminal.ATOM, NonTerminal.PROD_PRIME},
+                    new LexicalUnit[]{LexicalUnit.VARNAME, LexicalUnit.NUMBER, LexicalUnit.MINUS, LexicalUnit.LEFT_PARENTHESIS}),
+            new Rule(19, NonTerminal.PROD_PRIME, "<Prod'> -> * <Atom> <Prod'>", false,
+                    new Object[]{LexicalUnit.TIMES, NonTerminal.ATOM, NonTerminal.PROD_PRIME},
+                    new LexicalUnit[]{LexicalUnit.TIMES}),
+            new Rule(20, NonTerminal.PROD_PRIME, "<Prod'> -> / <Atom> <Prod'>", false,
+                    new Object[]{LexicalUnit.DIVIDE, NonTerminal.ATOM, NonTerminal.PROD_PRIME},
+                    new LexicalUnit[]{LexicalUnit.DIVIDE}),
+            new Rule(21, NonTerminal.PROD_PRIME, "<Prod'> -> ε", false,
+                    new Object[]{},
+                    new LexicalUnit[]{LexicalUnit.END, LexicalUnit.SEMICOLON, LexicalUnit.PLUS, LexicalUnit.MINUS, LexicalUnit.THEN, LexicalUnit.ENDIF, LexicalUnit.ELSE, LexicalUnit.OR, LexicalUnit.AND, LexicalUnit.EQUAL, LexicalUnit.GREATER_EQUAL, LexicalUnit.GREATER, LexicalUnit.SMALLER_EQUAL, LexicalUnit.SMALLER, LexicalUnit.DIFFERENT, LexicalUnit.DO, LexicalUnit.ENDWHILE, LexicalUnit.BY, LexicalUnit.TO}),
+            new Rule(22, NonTerminal.ATOM, "<Atom> -> - <Atom>", false,
+                    new Object[]{LexicalUnit.MINUS, NonTerminal.ATOM},
+                    new LexicalUnit[]{LexicalUnit.MINUS}),
+            new Rule(23, NonTerminal.ATOM, "<Atom> -> [Number]", true,
+                    new Object[]{LexicalUnit.NUMBER},
+                    new LexicalUnit[]{LexicalUnit.NUMBER}),
+            new Rule(24, NonTerminal.ATOM, "<Atom> -> [VarName]", true,
+                    new Object[]{LexicalUnit.VARNAME},
+                    new LexicalUnit[]{LexicalUnit.VARNAME}),
+            new Rule(25, NonTerminal.ATOM, "<Atom> -> ( <ExprArith> )", false,
+                    new Object[]{LexicalUnit.LEFT_PARENTHESIS, NonTerminal.EXPR_ARITH, LexicalUnit.RIGHT_PARENTHESIS},
+                    new LexicalUnit[]{LexicalUnit.LEFT_PARENTHESIS}),
+            new Rule(26, NonTerminal.IF, "<If> -> if <Cond> then <Code> <IfSeq>", false,
+                    new Object[]{LexicalUnit.IF, NonTerminal.COND, LexicalUnit.THEN, NonTerminal.CODE, NonTerminal.IF_SEQ},
+                    new LexicalUnit[]{LexicalUnit.IF}),
+            new Rule(27, NonTerminal.IF_SEQ, "<IfSeq> -> endif", true,
+                    new Object[]{LexicalUnit.ENDIF},
+                    new LexicalUnit[]{LexicalUnit.ENDIF}),
+            new Rule(28, NonTerminal.IF_SEQ, "<IfSeq> -> else <Code> endif", false,
+                    new Object[]{LexicalUnit.ELSE, NonTerminal.CODE, LexicalUnit.ENDIF},
+                    new LexicalUnit[]{LexicalUnit.ELSE}),
+            new Rule(29, NonTerminal.COND, "<Cond> -> <CondAnd> <Cond'>", false,
+                    new Object[]{NonTerminal.COND_AND, NonTerminal.COND_PRIME},
+                    new LexicalUnit[]{LexicalUnit.VARNAME, LexicalUnit.NUMBER, LexicalUnit.MINUS, LexicalUnit.LEFT_PARENTHESIS, LexicalUnit.NOT}),
+            new Rule(30, NonTerminal.COND_PRIME, "<Cond'> -> or <CondAnd> <Cond'>", false,
+                    new Object[]{LexicalUnit.OR, NonTerminal.COND_AND, NonTerminal.COND_PRIME},
+                    new LexicalUnit[]{LexicalUnit.OR}),
+            new Rule(31, NonTerminal.COND_PRIME, "<Cond'> -> ε", false,
+                    new Object[]{},
+                    new LexicalUnit[]{LexicalUnit.THEN, LexicalUnit.DO}),
+            new Rule(32, NonTerminal.COND_AND, "<CondAnd> -> <SimpleCond> <CondAnd'>", false,
+                    new Object[]{NonTerminal.SIMPLE_COND, NonTerminal.COND_AND_PRIME},
+                    new LexicalUnit[]{LexicalUnit.VARNAME, LexicalUnit.NUMBER, LexicalUnit.MINUS, LexicalUnit.LEFT_PARENTHESIS, LexicalUnit.NOT}),
+            new Rule(33, NonTerminal.COND_AND_PRIME, "<CondAnd'> -> and <SimpleCond> <CondAnd'>", false,
+                    new Object[]{LexicalUnit.AND, NonTerminal.SIMPLE_COND, NonTerminal.COND_AND_PRIME},
+                    new LexicalUnit[]{LexicalUnit.AND}),
+            new Rule(34, NonTerminal.COND_AND_PRIME, "<CondAnd'> -> ε", false,
+                    new Object[]{},
+                    new LexicalUnit[]{LexicalUnit.THEN, LexicalUnit.DO, LexicalUnit.OR}),
+            new Rule(35, NonTerminal.SIMPLE_COND, "<SimpleCond> -> <ExprArith> <SimpleCond'>", false,
+                    new Object[]{NonTerminal.EXPR_ARITH, NonTerminal.SIMPLE_COND_PRIME},
+                    new LexicalUnit[]{LexicalUnit.VARNAME, LexicalUnit.NUMBER, LexicalUnit.MINUS}),
+            new Rule(36, NonTerminal.SIMPLE_COND, "<SimpleCond> -> not <SimpleCond>", false,
+                    new Object[]{LexicalUnit.NOT, NonTerminal.SIMPLE_COND},
+                    new LexicalUnit[]{LexicalUnit.NOT}),
+            new Rule(37, NonTerminal.SIMPLE_COND, "<SimpleCond> -> (<Cond>)", false,
+                    new Object[]{LexicalUnit.LEFT_PARENTHESIS, NonTerminal.COND, LexicalUnit.RIGHT_PARENTHESIS},
+                    new LexicalUnit[]{LexicalUnit.LEFT_PARENTHESIS}),
+            new Rule(38, NonTerminal.SIMPLE_COND_PRIME, "<SimpleCond'> -> < <ExprArith>", false,
+                    new Object[]{LexicalUnit.SMALLER, NonTerminal.EXPR_ARITH},
+                    new LexicalUnit[]{LexicalUnit.SMALLER}),
+            new Rule(39, NonTerminal.SIMPLE_COND_PRIME, "<SimpleCond'> -> <= <ExprArith>", false,
+                    new Object[]{LexicalUnit.SMALLER_EQUAL, NonTerminal.EXPR_ARITH},
+                    new LexicalUnit[]{LexicalUnit.SMALLER_EQUAL}),
+            new Rule(40, NonTerminal.SIMPLE_COND_PRIME, "<SimpleCond'> -> = <ExprArith>", false,
+                    new Object[]{LexicalUnit.EQUAL, NonTerminal.EXPR_ARITH},
+                    new LexicalUnit[]{LexicalUnit.EQUAL}),
+            new Rule(41, NonTerminal.SIMPLE_COND_PRIME, "<SimpleCond'> -> > <ExprArith>", false,
+                    new Object[]{LexicalUnit.GREATER, NonTerminal.EXPR_ARITH},
+                    new LexicalUnit[]{LexicalUnit.GREATER}),
+            new Rule(42, NonTerminal.SIMPLE_COND_PRIME, "<SimpleCond'> -> >= <ExprArith>", false,
+                    new Object[]{LexicalUnit.GREATER_EQUAL, NonTerminal.EXPR_ARITH},
+                    new LexicalUnit[]{LexicalUnit.GREATER_EQUAL}),
+            new Rule(43, NonTerminal.SIMPLE_COND_PRIME, "<SimpleCond'> -> /= <ExprArith>", false,
+                    new Object[]{LexicalUnit.DIFFERENT, NonTerminal.EXPR_ARITH},
+                    new LexicalUnit[]{LexicalUnit.DIFFERENT}),
+            new Rule(44, NonTerminal.WHILE, "<While> -> while <Cond> do <Code> endwhile", false,
+                    new Object[]{LexicalUnit.WHILE, NonTerminal.COND, LexicalUnit.DO, NonTerminal.CODE, LexicalUnit.ENDWHILE},
+                    new LexicalUnit[]{LexicalUnit.WHILE}),
+            new Rule(45, NonTerminal.FOR, "<For> -> for [VarName] from <ExprArith> by <ExprArith> to <ExprArith> do <Code> endwhile", false,
+                    new Object[]{LexicalUnit.FOR, LexicalUnit.VARNAME, LexicalUnit.FROM, NonTerminal.EXPR_ARITH, LexicalUnit.BY, NonTerminal.EXPR_ARITH, LexicalUnit.TO, NonTerminal.EXPR_ARITH, LexicalUnit.DO, NonTerminal.CODE, LexicalUnit.ENDWHILE},
+                    new LexicalUnit[]{LexicalUnit.FOR}),
+            new Rule(46, NonTerminal.PRINT, "<Print> -> print([VarName])", true,
+                    new Object[]{LexicalUnit.PRINT, LexicalUnit.LEFT_PARENTHESIS, LexicalUnit.VARNAME, LexicalUnit.RIGHT_PARENTHESIS},
+                    new LexicalUnit[]{LexicalUnit.PRINT}),
+            new Rule(47, NonTerminal.READ, "<Read> -> read([VarName])", true,
+                    new Object[]{LexicalUnit.READ, LexicalUnit.LEFT_PARENTHESIS, LexicalUnit.VARNAME, LexicalUnit.RIGHT_PARENTHESIS},
+                    new LexicalUnit[]{LexicalUnit.READ})
+    };
+
+    /**
+     * Action table: the rule to apply for each variable (by ordinal) and lookahead (by ordinal),
+     * null if there is none.
+     */
+    private static final Rule[][] TABLE = new Rule[NonTerminal.values().length][LexicalUnit.values().length];
+
+    static {
+        for (Rule rule : RULES) {
+            for (LexicalUnit lookahead : rule.lookaheads) {
+                TABLE[rule.variable.ordinal()][lookahead.ordinal()] = rule;
+            }
+        }
+    }
+
+    /**
+     * Stream of symbols for the input
+     */
+    private final TokenStream symbols;
+    /**
+     * Verbose boolean
+     */
+    private final boolean v;
+    /**
+     * Syntax Error boolean
+     */
+    private boolean syntaxError;
+
+    TableParser(TokenStream symbols) {
+        this(symbols, false);
+    }
+
+    TableParser(TokenStream symbols, boolean verbose) {
+        this.symbols = symbols;
+        this.v = verbose;
+        this.syntaxError = false;
+    }
+
+    /**
+     * Parse the symbols and return the parse tree if there is no syntax error.
+     *
+     * As in the Parser, a variable with no rule for the lookahead gives no tree
+     * and the error is only reported by the next match.
+     *
+     * @return the parse tree created during the parsing
+     */
+    ParseTree parse() {
+        Deque<Object> stack = new ArrayDeque<>();
+        List<ParseTree> trees = new ArrayList<>();
+        stack.push(NonTerminal.PROGRAM);
+
+        while (!stack.isEmpty()) {
+            Object top = stack.pop();
+
+            if (top instanceof LexicalUnit) {
+                trees.add(match((LexicalUnit) top));
+            }
+            else if (top instanceof NonTerminal) {
+                Rule rule = TABLE[((NonTerminal) top).ordinal()][lookahead().ordinal()];
+                if (rule == null) {
+                    trees.add(null);
+                    continue;
+                }
+                print(rule.number, rule.description);
+
+                if (rule.symbols.length == 0) {
+                    trees.add(null); // ε gives no tree
+                    continue;
+                }
+                stack.push(rule);
+                for (int i = rule.symbols.length - 1; i >= 0; i--) {
+                    stack.push(rule.symbols[i]);
+                }
+            }
+            else {
+                // All the symbols of the rule are done, their trees become the children of the variable
+                Rule rule = (Rule) top;
+                List<ParseTree> done = trees.subList(trees.size() - rule.symbols.length, trees.size());
+                List<ParseTree> children = new ArrayList<>(done);
+                done.clear();
+                trees.add(build(rule, children));
+            }
+        }
+
+        if (syntaxError)
+            return null;
+        else
+            return trees.get(0);
+    }
+
+    /**
+     * Build the tree of a variable once all the symbols of its rule are done.
+     * <br>
+     * The expressions and the conditions are built as in the Parser: each operation is a tree
+     * with the operator at the top and the operands as children. The rules of <ExprArith'>,
+     * <Prod'>, <Cond'> and <CondAnd'> give a chain of the operators and of their right operand,
+     * from the last one to the first one, and the rule of the variable above the chain makes the
+     * operations from left to right.
+     *
+     * @param rule rule whose symbols are done
+     * @param children trees of the symbols of the rule, null for a symbol without tree
+     * @return the tree of the variable, null if there is none
+     */
+    private static ParseTree build(Rule rule, List<ParseTree> children) {
+        switch (rule.number) {
+            case 14: // <ExprArith> -> <Prod> <ExprArith'>
+                return expression("<ExprArith>", operations(children.get(0), children.get(1)));
+            case 29: // <Cond> -> <CondAnd> <Cond'>
+                return expression("<Cond>", operations(children.get(0), children.get(1)));
+            case 18: // <Prod> -> <Atom> <Prod'>
+            case 32: // <CondAnd> -> <SimpleCond> <CondAnd'>
+                return operations(children.get(0), children.get(1));
+            case 15: // <ExprArith'> -> + <Prod> <ExprArith'>
+            case 16: // <ExprArith'> -> - <Prod> <ExprArith'>
+            case 19: // <Prod'> -> * <Atom> <Prod'>
+            case 20: // <Prod'> -> / <Atom> <Prod'>
+            case 30: // <Cond'> -> or <CondAnd> <Cond'>
+            case 33: // <CondAnd'> -> and <SimpleCond> <CondAnd'>
+                ParseTree chain = children.get(2);
+                if (chain == null)
+                    chain = new ParseTree(new Symbol(null, rule.variable.label), new ArrayList<>());
+                chain.getChildren().add(children.get(1));
+                chain.getChildren().add(children.get(0));
+                return chain;
+            case 22: // <Atom> -> - <Atom>
+            case 36: // <SimpleCond> -> not <SimpleCond>
+                return operation(children.get(0), children.get(1), null);
+            case 23: // <Atom> -> [Number]
+            case 24: // <Atom> -> [VarName]
+                return children.get(0);
+            case 35: // <SimpleCond> -> <ExprArith> <SimpleCond'>
+                ParseTree left = operand(children.get(0));
+                ParseTree comparison = children.get(1);
+                if (comparison == null)
+                    return left;
+                if (left != null)
+                    comparison.getChildren().add(0, left);
+                return comparison;
+            case 38: // <SimpleCond'> -> < <ExprArith>
+            case 39: // <SimpleCond'> -> <= <ExprArith>
+            case 40: // <SimpleCond'> -> = <ExprArith>
+            case 41: // <SimpleCond'> -> > <ExprArith>
+            case 42: // <SimpleCond'> -> >= <ExprArith>
+            case 43: // <SimpleCond'> -> /= <ExprArith>
+                return operation(children.get(0), null, operand(children.get(1)));
+            default:
+                if (!rule.keepNulls) {
+                    while (children.remove(null));
+                }
+                return new ParseTree(new Symbol(null, rule.variable.label), children);
+        }
+    }
+
+    /**
+     * Make the operations of a chain from left to right.
+     *
+     * @param left first operand
+     * @param chain chain of the operators and of their right operand, from the last one, null if there is none
+     * @return the tree of the operations
+     */
+    private static ParseTree operations(ParseTree left, ParseTree chain) {
+        if (chain == null)
+            return left;
+
+        List<ParseTree> links = chain.getChildren();
+        for (int i = links.size() - 1; i > 0; i -= 2) {
+            left = operation(links.get(i), left, links.get(i - 1));
+        }
+        return left;
+    }
+
+    /**
+     * Create the node of the variable with the expression as only child.
+     *
+     * @return the node, or null if there is no expression
+     */
+    private static ParseTree expression(String variable, ParseTree expression) {
+        if (expression == null)
+            return null;
+
+        List<ParseTree> children = new ArrayList<>(1);
+        children.add(expression);
+        return new ParseTree(new Symbol(null, variable), children);
+    }
+
+    /**
+     * @return the expression of an <ExprArith> node, null if there is none
+     */
+    private static ParseTree operand(ParseTree expression) {
+        return expression == null ? null : expression.getChildren().get(0);
+    }
+
+    /**
+     * Add the operands of an operator as its children.
+     *
+     * @param operator leaf of the operator, null if it is missing
+     * @param left left operand, null if there is none
+     * @param right right operand, null if there is none
+     * @return the tree of the operation
+     */
+    private static ParseTree operation(ParseTree operator, ParseTree left, ParseTree right) {
+        if (operator == null)
+            return null;
+        if (left != null)
+            operator.getChildren().add(left);
+        if (right != null)
+            operator.getChildren().add(right);
+        return operator;
+    }
+
+    /**
+     * Match the input with the lexical unit type. If the match is succesfull,
+     * the lookahead is incremented and becomes the next terminal of the input
+     *
+     * @param type lexical unit to be matched
+     * @return a leaf of a ParseTree with the matched terminal
+     */
+    private ParseTree match(LexicalUnit type) {
+        if (symbols.peekType() == type) {
+            Symbol terminal = symbols.next();
+            if (v) {
+                System.out.println("Match : " + terminal);
+            }
+
+            return new ParseTree(terminal);
+        }
+        else if (!syntaxError) {
+            if (!v) {
+                System.out.println();
+            }
+            System.out.println("Syntax error at line " + symbols.peek().getLine());
+            syntaxError = true;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return return the type of the next symbol of the input
+     */
+    private LexicalUnit lookahead() {
+        return symbols.peekType();
+    }
+
+    /**
+     * Display a rule. (only the rule number if not verbose)
+     *
+     * @param number rule number
+     * @param rule rule description
+     */
+    private void print(int number, String rule) {
+        if (v)
+            System.out.println("[" + number + "] " + rule);
+    }
+}
@@ -0,0 +1,134 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Stream whose symbols are produced by the lexical analyzer running on its own thread.
+ * The analyzer fills a bounded queue that the parser empties, so the lexing of the
+ * rest of the input overlaps with the parsing and the memory used stays bounded.
+ * An error of the analyzer is thrown again on the parser side when it reaches it.
+ */
+class ThreadedTokenStream implements TokenStream {
+    /**
+     * Default number of symbols the analyzer can produce in advance
+     */
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Queue between the analyzer and the parser
+     */
+    private final BlockingQueue<Symbol> queue;
+    /**
+     * Look-ahead buffer on the consumer side
+     */
+    private final Symbol[] buffer;
+    /**
+     * Index of the next symbol in the look-ahead buffer
+     */
+    private int head;
+    /**
+     * Number of symbols in the look-ahead buffer
+     */
+    private int size;
+    /**
+     * END_OF_STREAM symbol once it has been received
+     */
+    private Symbol end;
+    /**
+     * Error raised by the analyzer, thrown again when the parser reaches it
+     */
+    private volatile RuntimeException error;
+    /**
+     * Thread running the analyzer
+     */
+    private final Thread producer;
+
+    ThreadedTokenStream(LexicalAnalyzer analyzer) {
+        this(analyzer, DEFAULT_CAPACITY, 1);
+    }
+
+    /**
+     * @param analyzer the lexical analyzer producing the symbols
+     * @param capacity number of symbols the analyzer can produce in advance
+     * @param lookahead maximal number of symbols which can be looked at before being consumed
+     */
+    ThreadedTokenStream(LexicalAnalyzer analyzer, int capacity, int lookahead) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.buffer = new Symbol[lookahead];
+        this.head = 0;
+        this.size = 0;
+        this.producer = new Thread(() -> produce(analyzer), "lexer");
+        this.producer.setDaemon(true); // Don't keep the program alive if the parser stops early
+        this.producer.start();
+    }
+
+    /**
+     * Body of the producer thread. Put all the symbols of the analyzer in the queue until END_OF_STREAM.
+     */
+    private void produce(LexicalAnalyzer analyzer) {
+        try {
+            Symbol symbol;
+            do {
+                try {
+                    symbol = analyzer.nextToken();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (RuntimeException e) {
+                    error = e;
+                    symbol = new Symbol(LexicalUnit.END_OF_STREAM);
+                }
+                queue.put(symbol);
+            } while (symbol.getType() != LexicalUnit.END_OF_STREAM);
+        } catch (UncheckedIOException e) {
+            error = e;
+            queue.offer(new Symbol(LexicalUnit.END_OF_STREAM));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public Symbol peek(int k) {
+        if (k >= buffer.length) {
+            throw new IllegalArgumentException("Look-ahead of " + (k + 1) + " symbols but the buffer only holds " + buffer.length);
+        }
+        while (size <= k) {
+            buffer[(head + size) % buffer.length] = take();
+            size++;
+        }
+        return buffer[(head + k) % buffer.length];
+    }
+
+    @Override
+    public Symbol next() {
+        Symbol symbol = peek(0);
+        buffer[head] = null;
+        head = (head + 1) % buffer.length;
+        size--;
+        return symbol;
+    }
+
+    /**
+     * Take the next symbol produced by the analyzer, waiting for it if needed
+     */
+    private Symbol take() {
+        if (end != null) {
+            return end;
+        }
+        Symbol symbol;
+        try {
+            symbol = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the lexical analyzer", e);
+        }
+        if (symbol.getType() == LexicalUnit.END_OF_STREAM) {
+            if (error != null) {
+                throw error;
+            }
+            end = symbol;
+        }
+        return symbol;
+    }
+}
@@ -0,0 +1,201 @@
+import java.util.Arrays;
+
+/**
+ * Compact representation of all the tokens of an input.
+ * Instead of one Symbol object per token, the tokens are stored in parallel int arrays:
+ * the ordinal of the lexical unit, the line, the column and a value which is the literal
+ * for a NUMBER or the id of the identifier for a VARNAME. This takes 16 bytes per token.
+ * <br>
+ * The Symbol of a token is only created when it is asked with symbolAt().
+ */
+class TokenBuffer {
+    /**
+     * Initial number of tokens the buffer can hold
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+    /**
+     * All the lexical units, indexed by ordinal
+     */
+    private static final LexicalUnit[] UNITS = LexicalUnit.values();
+    /**
+     * Text of the lexical units which always have the same text, indexed by ordinal
+     */
+    private static final String[] LEXEMES = new String[UNITS.length];
+
+    static {
+        LEXEMES[LexicalUnit.BEG.ordinal()] = "begin";
+        LEXEMES[LexicalUnit.END.ordinal()] = "end";
+        LEXEMES[LexicalUnit.SEMICOLON.ordinal()] = ";";
+        LEXEMES[LexicalUnit.ASSIGN.ordinal()] = ":=";
+        LEXEMES[LexicalUnit.LEFT_PARENTHESIS.ordinal()] = "(";
+        LEXEMES[LexicalUnit.RIGHT_PARENTHESIS.ordinal()] = ")";
+        LEXEMES[LexicalUnit.MINUS.ordinal()] = "-";
+        LEXEMES[LexicalUnit.PLUS.ordinal()] = "+";
+        LEXEMES[LexicalUnit.TIMES.ordinal()] = "*";
+        LEXEMES[LexicalUnit.DIVIDE.ordinal()] = "/";
+        LEXEMES[LexicalUnit.IF.ordinal()] = "if";
+        LEXEMES[LexicalUnit.THEN.ordinal()] = "then";
+        LEXEMES[LexicalUnit.ENDIF.ordinal()] = "endif";
+        LEXEMES[LexicalUnit.ELSE.ordinal()] = "else";
+        LEXEMES[LexicalUnit.NOT.ordinal()] = "not";
+        LEXEMES[LexicalUnit.AND.ordinal()] = "and";
+        LEXEMES[LexicalUnit.OR.ordinal()] = "or";
+        LEXEMES[LexicalUnit.EQUAL.ordinal()] = "=";
+        LEXEMES[LexicalUnit.GREATER_EQUAL.ordinal()] = ">=";
+        LEXEMES[LexicalUnit.GREATER.ordinal()] = ">";
+        LEXEMES[LexicalUnit.SMALLER_EQUAL.ordinal()] = "<=";
+        LEXEMES[LexicalUnit.SMALLER.ordinal()] = "<";
+        LEXEMES[LexicalUnit.DIFFERENT.ordinal()] = "/=";
+        LEXEMES[LexicalUnit.WHILE.ordinal()] = "while";
+        LEXEMES[LexicalUnit.DO.ordinal()] = "do";
+        LEXEMES[LexicalUnit.ENDWHILE.ordinal()] = "endwhile";
+        LEXEMES[LexicalUnit.FOR.ordinal()] = "for";
+        LEXEMES[LexicalUnit.FROM.ordinal()] = "from";
+        LEXEMES[LexicalUnit.BY.ordinal()] = "by";
+        LEXEMES[LexicalUnit.TO.ordinal()] = "to";
+        LEXEMES[LexicalUnit.PRINT.ordinal()] = "print";
+        LEXEMES[LexicalUnit.READ.ordinal()] = "read";
+    }
+
+    /**
+     * Ordinal of the lexical unit of each token
+     */
+    private int[] units;
+    /**
+     * Line of each token (starting at 0)
+     */
+    private int[] lines;
+    /**
+     * Column of each token
+     */
+    private int[] columns;
+    /**
+     * Literal of each NUMBER, id of the identifier of each VARNAME
+     */
+    private int[] values;
+    /**
+     * Number of tokens in the buffer
+     */
+    private int size;
+    /**
+     * Table of the identifiers whose ids are stored in the values
+     */
+    private final IdentifierTable identifiers;
+
+    /**
+     * @param identifiers table of the identifiers whose ids are stored in the values,
+     *                    the one of the lexical analyzer filling the buffer
+     */
+    TokenBuffer(IdentifierTable identifiers) {
+        this(identifiers, INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param identifiers table of the identifiers whose ids are stored in the values
+     * @param capacity initial number of tokens of the arrays, 0 for a subclass storing the tokens elsewhere
+     */
+    TokenBuffer(IdentifierTable identifiers, int capacity) {
+        this.units = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+        this.values = new int[capacity];
+        this.size = 0;
+        this.identifiers = identifiers;
+    }
+
+    /**
+     * Add a token at the end of the buffer
+     *
+     * @param unit lexical unit of the token
+     * @param line line of the token (starting at 0)
+     * @param column column of the token
+     * @param value literal of a NUMBER, id of a VARNAME, ignored otherwise
+     */
+    void add(LexicalUnit unit, int line, int column, int value) {
+        if (size == units.length) {
+            int capacity = 2 * size;
+            units = Arrays.copyOf(units, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        units[size] = unit.ordinal();
+        lines[size] = line;
+        columns[size] = column;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Get the number of tokens
+     * @return the number of tokens
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the lexical unit of a token
+     * @param i index of the token
+     * @return the lexical unit
+     */
+    LexicalUnit unitAt(int i) {
+        return UNITS[units[i]];
+    }
+
+    /**
+     * Get the line of a token
+     * @param i index of the token
+     * @return the line, starting at 0
+     */
+    int lineAt(int i) {
+        return lines[i];
+    }
+
+    /**
+     * Get the column of a token
+     * @param i index of the token
+     * @return the column
+     */
+    int columnAt(int i) {
+        return columns[i];
+    }
+
+    /**
+     * Get the value of a token
+     * @param i index of the token
+     * @return the literal of a NUMBER, the id of a VARNAME
+     */
+    int valueAt(int i) {
+        return values[i];
+    }
+
+    /**
+     * Get the table of the identifiers of the VARNAME tokens
+     * @return the identifier table
+     */
+    IdentifierTable getIdentifiers() {
+        return identifiers;
+    }
+
+    /**
+     * Create the Symbol corresponding to a token
+     * @param i index of the token
+     * @return a new Symbol with the same unit, position and value as the token
+     */
+    Symbol symbolAt(int i) {
+        LexicalUnit unit = unitAt(i);
+        Object value;
+        switch (unit) {
+            case NUMBER:
+                value = valueAt(i);
+                break;
+            case VARNAME:
+                value = identifiers.get(valueAt(i));
+                break;
+            default:
+                value = LEXEMES[unit.ordinal()];
+        }
+        return new Symbol(unit, lineAt(i), columnAt(i), value);
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Stream over the tokens of a TokenBuffer.
+ * The lookahead only reads the arrays of the buffer, a Symbol is created for a token when it is consumed.
+ */
+class TokenBufferStream implements TokenStream {
+    /**
+     * Symbol returned after the end of the buffer
+     */
+    private static final Symbol END_OF_STREAM = new Symbol(LexicalUnit.END_OF_STREAM);
+
+    /**
+     * Buffer of the tokens
+     */
+    private final TokenBuffer tokens;
+    /**
+     * Index of the next token
+     */
+    private int position;
+
+    TokenBufferStream(TokenBuffer tokens) {
+        this.tokens = tokens;
+        this.position = 0;
+    }
+
+    @Override
+    public LexicalUnit peekType() {
+        return position < tokens.size() ? tokens.unitAt(position) : LexicalUnit.END_OF_STREAM;
+    }
+
+    @Override
+    public Symbol peek(int k) {
+        int i = position + k;
+        return i < tokens.size() ? tokens.symbolAt(i) : END_OF_STREAM;
+    }
+
+    @Override
+    public Symbol next() {
+        Symbol symbol = peek();
+        if (position < tokens.size()) {
+            position++;
+        }
+        return symbol;
+    }
+}
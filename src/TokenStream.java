@@ -0,0 +1,40 @@
+/**
+ * Source of the symbols read by the parser.
+ * The symbols are consumed one by one, a symbol can be looked at before
+ * being consumed. Once the input is exhausted, the stream keeps returning
+ * the END_OF_STREAM symbol.
+ */
+interface TokenStream {
+    /**
+     * Look at the next symbol without consuming it
+     *
+     * @return the next symbol
+     */
+    default Symbol peek() {
+        return peek(0);
+    }
+
+    /**
+     * Look at the type of the next symbol without consuming it
+     *
+     * @return the lexical unit of the next symbol
+     */
+    default LexicalUnit peekType() {
+        return peek(0).getType();
+    }
+
+    /**
+     * Look at a symbol further in the stream without consuming anything
+     *
+     * @param k number of symbols to skip, 0 being the next symbol
+     * @return the symbol k positions after the next one
+     */
+    Symbol peek(int k);
+
+    /**
+     * Consume the next symbol
+     *
+     * @return the consumed symbol
+     */
+    Symbol next();
+}
@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Export of the trees (ParseTree and AbstractSyntaxTree) as LaTeX code.
+ * <br>
+ * The code is written piece by piece in an Appendable while walking the tree with an explicit
+ * stack, so the time is linear in the size of the code and a deep tree doesn't overflow the
+ * stack of the JVM.
+ */
+final class TreeExport {
+    private static final String LUA_HEADER = "\\RequirePackage{luatex85}\n\\documentclass{standalone}\n\n\\usepackage[T1]{fontenc}\n\\usepackage{tikz}\n\n\\usetikzlibrary{graphdrawing, graphdrawing.trees}\n\n\\begin{document}\n\n";
+    private static final String LUA_FOOTER = "\n\n\\end{document}\n%% Local Variables:\n%% TeX-engine: luatex\n%% End:";
+    private static final String PDF_HEADER = "\\documentclass[border=5pt]{standalone}\n\n\\usepackage[T1]{fontenc}\n\\usepackage{tikz}\n\\usepackage{forest}\n\n\\begin{document}\n\n";
+    private static final String PDF_FOOTER = "\n\n\\end{document}\n%% Local Variables:\n%% TeX-engine: pdflatex\n%% End:";
+
+    /**
+     * Text of a node of the tree
+     */
+    private interface Text<T> {
+        void writeTo(T node, Appendable out) throws IOException;
+    }
+
+    private final Appendable out;
+
+    private TreeExport(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Walk the tree in pre-order, writing the text of each node before its children and after them,
+     * and the text before and after each child. The root has no text before and after it.
+     */
+    private <T> void walk(T root, Function<T, List<T>> children, Text<T> open, String close,
+                          String beforeChild, String afterChild) throws IOException {
+        Deque<Iterator<T>> stack = new ArrayDeque<>();
+        open.writeTo(root, out);
+        stack.push(children.apply(root).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<T> siblings = stack.peek();
+            if (siblings.hasNext()) {
+                T child = siblings.next();
+                out.append(beforeChild);
+                open.writeTo(child, out);
+                stack.push(children.apply(child).iterator());
+            }
+            else {
+                stack.pop();
+                out.append(close);
+                if (!stack.isEmpty()) {
+                    out.append(afterChild);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the tree as LaTeX code
+     */
+    static <T> void writeLaTexTree(T root, Function<T, List<T>> children, Function<T, Object> label,
+                                   Appendable out) throws IOException {
+        new TreeExport(out).walk(root, children,
+                (node, text) -> text.append("[{").append(String.valueOf(label.apply(node))).append("} "),
+                "]", "", "");
+    }
+
+    /**
+     * Write the tree as TikZ code
+     */
+    static <T> void writeTikZ(T root, Function<T, List<T>> children, Function<T, Object> label,
+                              Appendable out) throws IOException {
+        new TreeExport(out).walk(root, children,
+                (node, text) -> text.append("node {").append(String.valueOf(label.apply(node))).append("}\n"),
+                "", "child { ", " }\n");
+    }
+
+    /**
+     * Write the tree as a TikZ picture
+     */
+    static <T> void writeTikZPicture(T root, Function<T, List<T>> children, Function<T, Object> label,
+                                     Appendable out) throws IOException {
+        out.append("\\begin{tikzpicture}[tree layout]\n\\");
+        writeTikZ(root, children, label, out);
+        out.append(";\n\\end{tikzpicture}");
+    }
+
+    /**
+     * Write the tree as a LaTeX document to be compiled with LuaLaTeX
+     */
+    static <T> void writeLaTeXLua(T root, Function<T, List<T>> children, Function<T, Object> label,
+                                  Appendable out) throws IOException {
+        out.append(LUA_HEADER);
+        writeTikZPicture(root, children, label, out);
+        out.append(LUA_FOOTER);
+    }
+
+    /**
+     * Write the tree as a forest picture
+     */
+    static <T> void writeForestPicture(T root, Function<T, List<T>> children, Function<T, Object> label,
+                                       Appendable out) throws IOException {
+        out.append("\\begin{forest}for tree={rectangle,draw, l sep=20pt}");
+        writeLaTexTree(root, children, label, out);
+        out.append(";\n\\end{forest}");
+    }
+
+    /**
+     * Write the tree as a LaTeX document to be compiled with PDFLaTeX
+     */
+    static <T> void writeLaTeX(T root, Function<T, List<T>> children, Function<T, Object> label,
+                               Appendable out) throws IOException {
+        out.append(PDF_HEADER);
+        writeForestPicture(root, children, label, out);
+        out.append(PDF_FOOTER);
+    }
+
+    /**
+     * Export in a String
+     */
+    interface Export {
+        void writeTo(Appendable out) throws IOException;
+    }
+
+    /**
+     * @return the code written by the export
+     */
+    static String toString(Export export) {
+        StringBuilder code = new StringBuilder();
+        try {
+            export.writeTo(code);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // A StringBuilder never throws
+        }
+        return code.toString();
+    }
+}
@@ -0,0 +1,178 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Check of the compiler on a program whose assignments and conditions have a great number of
+ * terms: they must be compiled without overflowing the stack and give the right value.
+ * <br>
+ * The first assignment and the first condition only have constants, so their value is computed
+ * here with the priorities of the language and must be found in the code once folded. The
+ * others use a variable read at the execution and are compiled in each mode. The parse tree
+ * written with -wt must be the same with the Parser and with the TableParser.
+ * <br>
+ * Usage, with the classes of the compiler in build:
+ * java -cp build test/LongExpression.java [number of terms, 100000 by default]
+ * It prints the failed checks and exits with 1 if there is one.
+ */
+public class LongExpression {
+    private static final String[] OPERATORS = {" + ", " * ", " - ", " / "};
+    private static final String[] COMPARATORS = {" < ", " <= ", " = ", " > ", " >= ", " /= "};
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int terms = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        Path directory = Files.createTempDirectory("long");
+        Path source = directory.resolve("long.alg");
+
+        StringBuilder program = new StringBuilder();
+        program.append("begin\n");
+        program.append("    read(a);\n");
+
+        // Only constants, never a division by 0
+        program.append("    b := 1");
+        int sum = 0;
+        int product = 1;
+        boolean minus = false;
+        for (int i = 1; i < terms; i++) {
+            String operator = OPERATORS[i % OPERATORS.length];
+            int operand = i % 7 + 1;
+            program.append(operator).append(operand);
+            if (operator.equals(" * ")) {
+                product *= operand;
+            }
+            else if (operator.equals(" / ")) {
+                product /= operand;
+            }
+            else {
+                sum = minus ? sum - product : sum + product;
+                minus = operator.equals(" - ");
+                product = operand;
+            }
+        }
+        int b = minus ? sum - product : sum + product;
+        program.append(";\n");
+        program.append("    print(b);\n");
+
+        // Only constants too, the 'and' have the priority on the 'or'
+        program.append("    yes := 1;\n");
+        program.append("    no := 0;\n");
+        program.append("    if ");
+        boolean condition = false;
+        boolean conjunction = true;
+        for (int i = 1; i < terms; i++) {
+            if (i > 1) {
+                if (i % 3 == 0) {
+                    program.append(" or ");
+                    condition |= conjunction;
+                    conjunction = true;
+                }
+                else {
+                    program.append(" and ");
+                }
+            }
+            String comparator = COMPARATORS[i % COMPARATORS.length];
+            int left = i % 11;
+            int right = i % 13;
+            program.append(left).append(comparator).append(right);
+            conjunction &= compare(comparator, left, right);
+        }
+        condition |= conjunction;
+        program.append(" then\n");
+        program.append("        print(yes)\n");
+        program.append("    else\n");
+        program.append("        print(no)\n");
+        program.append("    endif;\n");
+
+        // The variable a is only known at the execution
+        program.append("    c := a");
+        for (int i = 1; i < terms; i++) {
+            String operator = OPERATORS[i % OPERATORS.length];
+            program.append(operator).append(i % 3 == 0 && !operator.equals(" / ") ? "a" : String.valueOf(i % 7 + 1));
+        }
+        program.append(";\n");
+        program.append("    if a < c");
+        for (int i = 1; i < terms; i++) {
+            program.append(i % 2 == 0 ? " and " : " or ").append(i % 5 == 0 ? "not a = " : "c > ").append(i);
+        }
+        program.append(" then\n");
+        program.append("        print(c)\n");
+        program.append("    endif\n");
+        program.append("end\n");
+        Files.write(source, program.toString().getBytes(StandardCharsets.UTF_8));
+
+        String code = compile(source, "-o", directory.resolve("long.ll").toString());
+        check(code.contains("call void @println(i32 " + b + ")"), "the assignment of b isn't folded to " + b);
+        check(code.contains("call void @println(i32 " + (condition ? 1 : 0) + ")"), "the condition isn't folded to " + condition);
+        check(!code.contains("call void @println(i32 " + (condition ? 0 : 1) + ")"), "the branch of the condition isn't removed");
+
+        // The modes must give the same code, except without the optimizations
+        check(code.equals(compile(source, "-o", directory.resolve("offheap.ll").toString(), "-offheap")), "-offheap gives another code");
+        check(code.equals(compile(source, "-o", directory.resolve("table.ll").toString(), "-table")), "-table gives another code");
+        compile(source, "-o", directory.resolve("nofold.ll").toString(), "-no-fold", "-no-ssa", "-no-licm");
+
+        Path parserTree = directory.resolve("parser.tex");
+        Path tableTree = directory.resolve("table.tex");
+        compile(source, "-o", directory.resolve("parser.ll").toString(), "-wt", parserTree.toString());
+        compile(source, "-o", directory.resolve("table.ll").toString(), "-wt", tableTree.toString(), "-table");
+        check(Files.mismatch(parserTree, tableTree) == -1, "-wt gives another parse tree with -table");
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+
+        if (failures > 0) {
+            System.exit(1);
+        }
+        System.out.println("OK " + terms + " terms");
+    }
+
+    /**
+     * Compile the source with the options.
+     *
+     * @return the code written in the file given after -o, empty if the compilation failed
+     */
+    private static String compile(Path source, String... options) throws IOException, InterruptedException {
+        String[] args = new String[options.length + 1];
+        args[0] = source.toString();
+        System.arraycopy(options, 0, args, 1, options.length);
+        Path output = Path.of(options[1]);
+        Files.deleteIfExists(output);
+
+        Main.main(args);
+
+        String code = Files.exists(output) ? new String(Files.readAllBytes(output), StandardCharsets.UTF_8) : "";
+        check(code.contains("define i32 @main()"), "no code with " + String.join(" ", options));
+        return code;
+    }
+
+    private static boolean compare(String comparator, int left, int right) {
+        switch (comparator) {
+            case " < ":
+                return left < right;
+            case " <= ":
+                return left <= right;
+            case " = ":
+                return left == right;
+            case " > ":
+                return left > right;
+            case " >= ":
+                return left >= right;
+            default:
+                return left != right;
+        }
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            System.out.println("FAIL " + failure);
+            failures++;
+        }
+    }
+}